@@ -0,0 +1,15 @@
+#!/bin/sh
+# Compila el proyecto y ejecuta la batería de benchmarks.
+# Con un JDK que incluya jdk.incubator.vector (17 o superior) se compila también src-vector/ y se mide el kernel vectorial.
+# Uso: scripts/benchmark.sh [--quick] [--filter TEXTO] [--save ARCHIVO] [--baseline ARCHIVO] [--tolerance FRACCIÓN]
+set -e
+cd "$(dirname "$0")/.."
+out="${BUILD_DIR:-build/classes}"
+mkdir -p "$out"
+javac --release 11 -encoding UTF-8 -d "$out" src/*.java
+modules=""
+if java --list-modules 2>/dev/null | grep -q '^jdk.incubator.vector'; then
+    javac --add-modules jdk.incubator.vector -encoding UTF-8 -nowarn -cp "$out" -d "$out" src-vector/*.java 2>/dev/null
+    modules="--add-modules jdk.incubator.vector"
+fi
+exec java ${JAVA_OPTS:--Xms1g -Xmx1g} $modules -cp "$out" BenchmarkSuite "$@"
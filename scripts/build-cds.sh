@@ -0,0 +1,16 @@
+#!/bin/sh
+# Construye la distribución de arranque rápido en build/dist: cripto.jar y su archivo AppCDS cripto.jsa,
+# grabado mientras StartupTraining ejecuta las operaciones habituales. Requiere un JDK 13 o superior;
+# el archivo solo sirve para la misma versión exacta de la JVM que lo creó.
+# Uso: scripts/build-cds.sh y después scripts/cripto.sh encrypt --in ... (mismos argumentos que MainApp)
+set -e
+cd "$(dirname "$0")/.."
+# Rutas absolutas: la JVM solo usa el archivo con la misma ruta de clases con la que se creó
+dist="$(pwd)/build/dist"
+rm -rf "$dist"
+mkdir -p "$dist/classes"
+javac --release 11 -encoding UTF-8 -d "$dist/classes" src/*.java
+jar --create --file "$dist/cripto.jar" --main-class MainApp -C "$dist/classes" .
+rm -rf "$dist/classes"
+java -XX:ArchiveClassesAtExit="$dist/cripto.jsa" -Xlog:cds=error -cp "$dist/cripto.jar" StartupTraining
+echo "Distribución lista: $dist/cripto.jar y $dist/cripto.jsa ($(wc -c < "$dist/cripto.jsa") bytes)"
@@ -0,0 +1,14 @@
+#!/bin/sh
+# Ejecuta la distribución de scripts/build-cds.sh con su archivo AppCDS y opciones de arranque rápido.
+# CRIPTO_JAVA_OPTS sustituye a las opciones por defecto; con archivos grandes conviene dejarla vacía
+# para recuperar el compilador C2.
+dist="$(cd "$(dirname "$0")/.." && pwd)/build/dist"
+if [ ! -f "$dist/cripto.jar" ]; then
+    echo "Falta $dist/cripto.jar: ejecute antes scripts/build-cds.sh" >&2
+    exit 1
+fi
+cds=""
+if [ -f "$dist/cripto.jsa" ]; then
+    cds="-XX:SharedArchiveFile=$dist/cripto.jsa"
+fi
+exec java $cds ${CRIPTO_JAVA_OPTS--XX:TieredStopAtLevel=1 -XX:+UseSerialGC} -cp "$dist/cripto.jar" MainApp "$@"
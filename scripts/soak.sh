@@ -0,0 +1,11 @@
+#!/bin/sh
+# Compila el proyecto y ejecuta las pruebas de carga: ida y vuelta en todos los modos y fuerza bruta sobre corpus generados.
+# Los corpus se escriben en un directorio temporal (o en --dir); un tamaño de 10GB necesita unos 30 GB libres.
+# Uso: scripts/soak.sh [--quick] [--sizes 1KB,1MB,10GB] [--filter TEXTO] [--dir DIRECTORIO] [--save ARCHIVO]
+#                      [--baseline ARCHIVO] [--tolerance FRACCIÓN] [--max-rss MB] [--max-pause MS]
+set -e
+cd "$(dirname "$0")/.."
+out="${BUILD_DIR:-build/classes}"
+mkdir -p "$out"
+javac --release 11 -encoding UTF-8 -d "$out" src/*.java
+exec java ${JAVA_OPTS:--Xmx1g} -cp "$out" SoakSuite "$@"
@@ -0,0 +1,39 @@
+#!/bin/sh
+# Mide el arranque: tiempo desde lanzar la JVM hasta terminar de cifrar un archivo de 1 KB, como mediana
+# de N ejecuciones, con las clases compiladas y la JVM por defecto frente a la distribución de
+# scripts/build-cds.sh (AppCDS, C1 y SerialGC). Necesita el date de GNU (+%N).
+# Uso: scripts/startup.sh [N]   (10 ejecuciones por defecto)
+set -e
+cd "$(dirname "$0")/.."
+runs="${1:-10}"
+classes="${BUILD_DIR:-build/classes}"
+mkdir -p "$classes"
+javac --release 11 -encoding UTF-8 -d "$classes" src/*.java
+if [ ! -f build/dist/cripto.jsa ]; then
+    scripts/build-cds.sh > /dev/null 2>&1
+fi
+tmp=$(mktemp -d)
+trap 'rm -rf "$tmp"' EXIT
+head -c 1024 README.md > "$tmp/claro.txt"
+# El registro de ejecuciones va al directorio temporal para no tocar files/
+log="-Dcripto.registro=$tmp/registro.jsonl"
+
+measure() {
+    label="$1"
+    shift
+    times=""
+    i=0
+    while [ "$i" -lt "$runs" ]; do
+        start=$(date +%s%N)
+        "$@" encrypt --in "$tmp/claro.txt" --out "$tmp/cifrado.txt" --key 3 2> /dev/null
+        end=$(date +%s%N)
+        times="$times $(( (end - start) / 1000000 ))"
+        i=$((i + 1))
+    done
+    median=$(printf '%s\n' $times | sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : (v[NR / 2] + v[NR / 2 + 1]) / 2 }')
+    printf '%-42s mediana %5s ms  (%s )\n' "$label" "$median" "$times"
+}
+
+measure "clases, JVM por defecto" java "$log" -cp "$classes" MainApp
+CRIPTO_JAVA_OPTS="$log" measure "jar con AppCDS" scripts/cripto.sh
+CRIPTO_JAVA_OPTS="-XX:TieredStopAtLevel=1 -XX:+UseSerialGC $log" measure "jar con AppCDS, C1 y SerialGC (cripto.sh)" scripts/cripto.sh
@@ -0,0 +1,93 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The {@code VectorTranslationKernel} class applies the ASCII translation tables with the incubating
+ * Vector API, one whole vector of bytes or characters per step. The 128-entry table is split into
+ * chunks as wide as a vector; the low bits of every input select an entry of each chunk with a lane
+ * shuffle and the high bits choose which chunk the result comes from. Inputs from 128 up match no
+ * chunk and stay unchanged, as in the scalar loops.
+ *
+ * <p>This class needs {@code --add-modules jdk.incubator.vector} both to compile and to run; see
+ * {@link TranslationKernel} for how it is loaded.</p>
+ */
+
+final class VectorTranslationKernel implements TranslationKernel {
+
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Short> CHARS = ShortVector.SPECIES_PREFERRED;
+
+    /**
+     * Constructs the kernel for the preferred vector size of the processor.
+     *
+     * @throws IllegalStateException if the vectors are too narrow or too wide for the tables
+     */
+    VectorTranslationKernel() {
+        if (BYTES.length() < 16 || CHARS.length() > Alphabet.TABLE_SIZE) {
+            throw new IllegalStateException("Tamaño de vector no soportado: " + BYTES.vectorBitSize() + " bits");
+        }
+    }
+
+    @Override
+    public void translate(char[] buffer, int offset, int length, char[] table) {
+        int lanes = CHARS.length();
+        int chunks = Math.max(1, Alphabet.TABLE_SIZE / lanes);
+        ShortVector[] tables = new ShortVector[chunks];
+        for (int j = 0; j < chunks; j++) {
+            tables[j] = ShortVector.fromCharArray(CHARS, table, j * lanes);
+        }
+        short lowMask = (short) (lanes - 1);
+        short highShift = (short) Integer.numberOfTrailingZeros(lanes);
+        int end = offset + length;
+        int i = offset;
+        for (int bound = offset + CHARS.loopBound(length); i < bound; i += lanes) {
+            ShortVector input = ShortVector.fromCharArray(CHARS, buffer, i);
+            VectorShuffle<Short> positions = input.and(lowMask).toShuffle();
+            ShortVector high = input.lanewise(VectorOperators.LSHR, highShift);
+            ShortVector result = input;
+            for (int j = 0; j < chunks; j++) {
+                result = result.blend(tables[j].rearrange(positions), high.compare(VectorOperators.EQ, (short) j));
+            }
+            result.intoCharArray(buffer, i);
+        }
+        for (; i < end; i++) {
+            char c = buffer[i];
+            if (c < Alphabet.TABLE_SIZE) {
+                buffer[i] = table[c];
+            }
+        }
+    }
+
+    @Override
+    public void translate(ByteBuffer source, ByteBuffer target, byte[] table) {
+        int lanes = BYTES.length();
+        int chunks = Math.max(1, Alphabet.TABLE_SIZE / lanes);
+        ByteVector[] tables = new ByteVector[chunks];
+        for (int j = 0; j < chunks; j++) {
+            tables[j] = ByteVector.fromArray(BYTES, table, j * lanes);
+        }
+        byte lowMask = (byte) (lanes - 1);
+        byte highShift = (byte) Integer.numberOfTrailingZeros(lanes);
+        int offset = target.position() - source.position();
+        int i = source.position();
+        int end = source.limit();
+        for (int bound = i + BYTES.loopBound(end - i); i < bound; i += lanes) {
+            ByteVector input = ByteVector.fromByteBuffer(BYTES, source, i, ByteOrder.nativeOrder());
+            VectorShuffle<Byte> positions = input.and(lowMask).toShuffle();
+            ByteVector high = input.lanewise(VectorOperators.LSHR, highShift);
+            ByteVector result = input;
+            for (int j = 0; j < chunks; j++) {
+                result = result.blend(tables[j].rearrange(positions), high.compare(VectorOperators.EQ, (byte) j));
+            }
+            result.intoByteBuffer(target, i + offset, ByteOrder.nativeOrder());
+        }
+        for (; i < end; i++) {
+            target.put(i + offset, table[source.get(i) & 0xFF]);
+        }
+    }
+}
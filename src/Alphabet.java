@@ -0,0 +1,305 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * The {@code Alphabet} class defines the ordered set of characters a Caesar cipher shifts. Characters
+ * outside the alphabet pass through unchanged. Instances are immutable and can be shared between
+ * threads; two alphabets with the same characters in the same order are equal.
+ *
+ * <p>Each alphabet is compiled into a lookup plan: a dense table indexed by character covers every
+ * character below the largest one under {@link #DENSE_LIMIT}, which includes ASCII, Latin-1 and the
+ * other European scripts, and the remaining characters go to a small open-addressing hash. Looking a
+ * character up costs the same whatever the size of the alphabet.</p>
+ */
+
+public final class Alphabet {
+
+    /**
+     * Smallest size of the dense table, so that every ASCII character is looked up directly.
+     */
+    static final int TABLE_SIZE = 128;
+
+    /**
+     * Characters from this value up are looked up in the hash instead of the dense table.
+     */
+    static final int DENSE_LIMIT = 2048;
+
+    /**
+     * Upper and lower case English letters, the space and common punctuation: the original alphabet.
+     */
+    public static final Alphabet BASIC = of("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz .,:;!?\"'");
+
+    /**
+     * The basic alphabet plus the Spanish letters and inverted marks.
+     */
+    public static final Alphabet SPANISH = of(BASIC + "ÁÉÍÓÚÜÑáéíóúüñ¿¡");
+
+    /**
+     * The basic alphabet plus digits and the rest of the printable ASCII characters.
+     */
+    public static final Alphabet ENGLISH = of(BASIC + "0123456789#$%&()*+-/<=>@[\\]^_`{|}~");
+
+    /**
+     * Every printable character of ISO 8859-1: ASCII from the space to {@code ~} and the
+     * non-breaking space up to {@code ÿ}.
+     */
+    public static final Alphabet LATIN_1 = of(range(' ', '~') + range('\u00A0', '\u00FF'));
+
+    /**
+     * The alphabet used by default, chosen with the {@code cripto.alfabeto} system property; see
+     * {@link #fromName(String)}. It is {@link #BASIC} when the property is not set.
+     */
+    public static final Alphabet DEFAULT = configured();
+
+    private final char[] chars;
+
+    /**
+     * Position in the alphabet of each character below {@code index.length}, or {@code -1}.
+     */
+    final int[] index;
+
+    /**
+     * Open-addressing hash of the characters not covered by {@code index}, or {@code null} if there
+     * are none. Empty slots hold {@code 0}, which is always in the dense range.
+     */
+    final char[] sparseKeys;
+
+    /**
+     * Position in the alphabet of the character in the same slot of {@code sparseKeys}.
+     */
+    final int[] sparseIndex;
+
+    private final boolean ascii;
+    private final int hashCode;
+
+    private Alphabet(char[] chars, int[] index, char[] sparseKeys, int[] sparseIndex) {
+        this.chars = chars;
+        this.index = index;
+        this.sparseKeys = sparseKeys;
+        this.sparseIndex = sparseIndex;
+        this.ascii = index.length == TABLE_SIZE && sparseKeys == null;
+        this.hashCode = Arrays.hashCode(chars);
+    }
+
+    /**
+     * Creates an alphabet with the characters of a string, in order.
+     *
+     * @param characters the characters of the alphabet
+     * @return the alphabet
+     * @throws IllegalArgumentException if there are fewer than two characters, a character is repeated
+     *         or a character is a surrogate, which cannot be shifted on its own
+     */
+    public static Alphabet of(CharSequence characters) {
+        char[] chars = characters.toString().toCharArray();
+        if (chars.length < 2) {
+            throw new IllegalArgumentException("El alfabeto debe tener al menos dos caracteres");
+        }
+        int denseLength = TABLE_SIZE;
+        int sparseCount = 0;
+        for (char c : chars) {
+            if (Character.isSurrogate(c)) {
+                throw new IllegalArgumentException("El alfabeto no puede contener caracteres fuera del plano básico");
+            }
+            if (c < DENSE_LIMIT) {
+                denseLength = Math.max(denseLength, c + 1);
+            } else {
+                sparseCount++;
+            }
+        }
+        int[] index = new int[denseLength];
+        Arrays.fill(index, -1);
+        char[] sparseKeys = null;
+        int[] sparseIndex = null;
+        if (sparseCount > 0) {
+            // Capacidad potencia de dos con al menos la mitad de huecos libres
+            sparseKeys = new char[Integer.highestOneBit(sparseCount * 2 - 1) << 1];
+            sparseIndex = new int[sparseKeys.length];
+        }
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+            boolean repeated;
+            if (c < denseLength) {
+                repeated = index[c] != -1;
+                index[c] = i;
+            } else {
+                int slot = slot(sparseKeys, c);
+                repeated = sparseKeys[slot] == c;
+                sparseKeys[slot] = c;
+                sparseIndex[slot] = i;
+            }
+            if (repeated) {
+                throw new IllegalArgumentException("Carácter repetido en el alfabeto: " + c);
+            }
+        }
+        return new Alphabet(chars, index, sparseKeys, sparseIndex);
+    }
+
+    /**
+     * Finds an alphabet by name: {@code basico}, {@code es}, {@code en} or {@code latin1}. Any other
+     * name is read as the path of a UTF-8 file whose characters, ignoring line breaks, form the alphabet.
+     *
+     * @param name the name of a predefined alphabet or the path of an alphabet file
+     * @return the alphabet
+     * @throws IllegalArgumentException if the file cannot be read or does not define a valid alphabet
+     */
+    public static Alphabet fromName(String name) {
+        switch (name.trim().toLowerCase()) {
+            case "basico":
+            case "básico":
+                return BASIC;
+            case "es":
+                return SPANISH;
+            case "en":
+                return ENGLISH;
+            case "latin1":
+                return LATIN_1;
+            default:
+                try {
+                    String characters = new String(Files.readAllBytes(Paths.get(name.trim())), StandardCharsets.UTF_8);
+                    return of(characters.replace("\r", "").replace("\n", ""));
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("No se pudo leer el alfabeto " + name + ": " + e.getMessage(), e);
+                }
+        }
+    }
+
+    private static Alphabet configured() {
+        String name = System.getProperty("cripto.alfabeto");
+        return name == null ? BASIC : fromName(name);
+    }
+
+    private static String range(char first, char last) {
+        StringBuilder builder = new StringBuilder();
+        for (char c = first; c <= last; c++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    private static int slot(char[] keys, char c) {
+        int mask = keys.length - 1;
+        int slot = (c * 0x9E3779B1 >>> 16) & mask;
+        while (keys[slot] != 0 && keys[slot] != c) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Gets the number of characters in the alphabet, which is also the number of distinct keys.
+     *
+     * @return the length of the alphabet
+     */
+    public int length() {
+        return chars.length;
+    }
+
+    /**
+     * Gets the character at a position of the alphabet.
+     *
+     * @param position the position, from 0 to {@code length() - 1}
+     * @return the character at that position
+     */
+    public char charAt(int position) {
+        return chars[position];
+    }
+
+    /**
+     * Finds the position of a character in the alphabet.
+     *
+     * @param c the character to find
+     * @return the position of the character, or {@code -1} if it is not part of the alphabet
+     */
+    public int indexOf(char c) {
+        if (c < index.length) {
+            return index[c];
+        }
+        int slot = sparseSlot(c);
+        return slot == -1 ? -1 : sparseIndex[slot];
+    }
+
+    /**
+     * Finds the slot of a character outside the dense range in {@code sparseKeys}.
+     *
+     * @param c the character to find
+     * @return the slot of the character, or {@code -1} if it is not part of the alphabet
+     */
+    int sparseSlot(char c) {
+        if (sparseKeys == null) {
+            return -1;
+        }
+        int slot = slot(sparseKeys, c);
+        return sparseKeys[slot] == c ? slot : -1;
+    }
+
+    /**
+     * Checks whether every character of the alphabet is ASCII. Only then can ASCII and UTF-8 text be
+     * translated byte by byte, since no character changes its encoded length.
+     *
+     * @return {@code true} if the alphabet only has ASCII characters
+     */
+    public boolean isAscii() {
+        return ascii;
+    }
+
+    /**
+     * Gets the characters of the alphabet.
+     *
+     * @return a copy of the characters, in order
+     */
+    public char[] toCharArray() {
+        return chars.clone();
+    }
+
+    /**
+     * Counts how many times each alphabet character appears in a range of a character buffer.
+     * Characters outside the alphabet are ignored.
+     *
+     * @param buffer the characters to count
+     * @param offset the first position to count
+     * @param length the number of characters to count
+     * @param counts the counters to increment, indexed by alphabet position
+     */
+    void countSymbols(char[] buffer, int offset, int length, long[] counts) {
+        int[] dense = index;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            char c = buffer[i];
+            int position = c < dense.length ? dense[c] : indexOf(c);
+            if (position != -1) {
+                counts[position]++;
+            }
+        }
+    }
+
+    /**
+     * Builds the histogram of alphabet characters of a text in a single pass.
+     *
+     * @param text the text to analyze
+     * @return the number of occurrences of each character, indexed by alphabet position
+     */
+    public long[] histogram(CharSequence text) {
+        long[] counts = new long[chars.length];
+        char[] buffer = text.toString().toCharArray();
+        countSymbols(buffer, 0, buffer.length, counts);
+        return counts;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other == this || (other instanceof Alphabet && Arrays.equals(chars, ((Alphabet) other).chars));
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars);
+    }
+}
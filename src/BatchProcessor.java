@@ -0,0 +1,162 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The {@code BatchProcessor} class encrypts, decrypts or cracks every file of a directory tree in
+ * a single run. Files are handed to a pool of I/O threads through a bounded queue, so a huge tree
+ * never piles up in memory; the translation of large files is split on a fixed pool of CPU threads
+ * shared by all of them. Each output is written to the same relative path under the output
+ * directory, and a file that fails is recorded in the report without stopping the others. The
+ * processor must be closed once it is no longer needed to release its CPU threads.
+ */
+
+public class BatchProcessor implements AutoCloseable {
+
+    /**
+     * What to do with each file.
+     */
+    public enum Operation {
+        /** Encrypt with the given key. */
+        ENCRYPT,
+        /** Decrypt with the given key. */
+        DECRYPT,
+        /** Decrypt with the key recovered by frequency analysis of each file. */
+        CRACK
+    }
+
+    private final BruteForce bruteForce;
+    private final int ioThreads;
+    private final int queueCapacity;
+    private final ParallelCipher cipher;
+    private RunLog runLog;
+
+    /**
+     * Constructs a {@code BatchProcessor} object.
+     *
+     * @param bruteForce the {@code BruteForce} object used to recover keys in {@link Operation#CRACK} mode
+     * @param ioThreads the number of files processed at the same time
+     * @param cpuThreads the number of threads that translate the content of large files
+     * @param queueCapacity the number of files that may wait for an I/O thread
+     * @throws IllegalArgumentException if a thread count or the queue capacity is less than 1
+     */
+    public BatchProcessor(BruteForce bruteForce, int ioThreads, int cpuThreads, int queueCapacity) {
+        if (ioThreads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("El número de hilos y la capacidad de la cola deben ser mayores que cero");
+        }
+        this.bruteForce = bruteForce;
+        this.ioThreads = ioThreads;
+        this.queueCapacity = queueCapacity;
+        this.cipher = new ParallelCipher(cpuThreads);
+    }
+
+    /**
+     * Sets the log where every file processed successfully is recorded. Nothing is recorded by default.
+     * The records are written in groups, so the caller must flush or close the log after the run.
+     *
+     * @param runLog the log of runs, or {@code null} to record nothing
+     */
+    public void setRunLog(RunLog runLog) {
+        this.runLog = runLog;
+    }
+
+    /**
+     * Shuts down the CPU threads shared by the files. The processor must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        cipher.close();
+    }
+
+    /**
+     * Processes every regular file under {@code inputRoot} that matches {@code glob}. A glob without
+     * {@code /} is matched against the file name, such as {@code *.txt}; otherwise against the path
+     * relative to {@code inputRoot}, such as {@code logs/**.log}. Files inside {@code outputRoot} are
+     * skipped, so the output directory may be placed inside the input one.
+     *
+     * @param inputRoot the directory to process
+     * @param glob the pattern selecting the files to process
+     * @param outputRoot the directory that receives the mirrored tree of outputs
+     * @param operation what to do with each file
+     * @param key the key to use; ignored for {@link Operation#CRACK}
+     * @return the report with the outcome of every file
+     * @throws IOException if the input directory cannot be walked
+     * @throws InterruptedException if the thread is interrupted while waiting for the files
+     * @throws IllegalArgumentException if the input and output directories are the same
+     */
+    public BatchReport process(Path inputRoot, String glob, Path outputRoot, Operation operation, int key)
+            throws IOException, InterruptedException {
+        Path inputDirectory = inputRoot.toAbsolutePath().normalize();
+        Path outputDirectory = outputRoot.toAbsolutePath().normalize();
+        if (inputDirectory.equals(outputDirectory)) {
+            throw new IllegalArgumentException("El directorio de salida debe ser distinto del de entrada");
+        }
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        boolean matchName = !glob.contains("/");
+
+        BatchReport report = new BatchReport();
+        ExecutorService executor = Executors.newFixedThreadPool(ioThreads);
+        // Cola acotada: el recorrido espera cuando hay demasiados archivos pendientes
+        Semaphore pending = new Semaphore(ioThreads + queueCapacity);
+        long start = System.nanoTime();
+        try (Stream<Path> files = Files.walk(inputDirectory)) {
+            Iterator<Path> iterator = files.iterator();
+            while (iterator.hasNext()) {
+                Path input = iterator.next();
+                Path relative = inputDirectory.relativize(input);
+                if (!Files.isRegularFile(input) || input.startsWith(outputDirectory)
+                        || !matcher.matches(matchName ? relative.getFileName() : relative)) {
+                    continue;
+                }
+                Path output = outputDirectory.resolve(relative.toString());
+                pending.acquire();
+                executor.execute(() -> {
+                    try {
+                        processFile(input, output, operation, key, report);
+                    } finally {
+                        pending.release();
+                    }
+                });
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            report.setElapsedNanos(System.nanoTime() - start);
+        }
+        return report;
+    }
+
+    private void processFile(Path input, Path output, Operation operation, int key, BatchReport report) {
+        long start = System.nanoTime();
+        int usedKey = operation == Operation.CRACK ? -1 : key;
+        try {
+            if (operation == Operation.CRACK) {
+                usedKey = bruteForce.findKey(input);
+            }
+            Files.createDirectories(output.getParent());
+            FileManager.transform(input, output, operation == Operation.ENCRYPT ? usedKey : CaesarCipher.inverse(usedKey),
+                    operation == Operation.ENCRYPT, cipher);
+            long nanos = System.nanoTime() - start;
+            if (runLog != null) {
+                RunLog.Operation recorded = operation == Operation.ENCRYPT ? RunLog.Operation.ENCRYPT
+                        : operation == Operation.DECRYPT ? RunLog.Operation.DECRYPT : RunLog.Operation.CRACK;
+                runLog.append(RunLog.Record.of(recorded, input, output, usedKey, nanos));
+            }
+            report.addSuccess(input, output, Files.size(input), nanos, usedKey);
+        } catch (Exception e) {
+            // Un archivo con error no detiene el resto del lote
+            report.addFailure(input, output, System.nanoTime() - start, usedKey, e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The {@code BatchReport} class collects the outcome of every file processed by a
+ * {@code BatchProcessor} run: its timing and throughput, the key used, or the error that stopped it.
+ * Entries can be added from several threads.
+ */
+
+public class BatchReport {
+
+    private final List<Entry> entries = Collections.synchronizedList(new ArrayList<>());
+    private long elapsedNanos;
+
+    /**
+     * The outcome of a single file.
+     */
+    public static final class Entry {
+        private final Path input;
+        private final Path output;
+        private final long bytes;
+        private final long nanos;
+        private final int key;
+        private final String error;
+
+        Entry(Path input, Path output, long bytes, long nanos, int key, String error) {
+            this.input = input;
+            this.output = output;
+            this.bytes = bytes;
+            this.nanos = nanos;
+            this.key = key;
+            this.error = error;
+        }
+
+        /**
+         * Gets the processed file.
+         *
+         * @return the input path
+         */
+        public Path getInput() {
+            return input;
+        }
+
+        /**
+         * Gets the file written for the input.
+         *
+         * @return the output path
+         */
+        public Path getOutput() {
+            return output;
+        }
+
+        /**
+         * Gets the size of the input.
+         *
+         * @return the number of bytes read
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Gets how long the file took to process.
+         *
+         * @return the elapsed time in nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Gets the key used for the file, given or recovered by brute force.
+         *
+         * @return the key, or {@code -1} if the file failed before a key was known
+         */
+        public int getKey() {
+            return key;
+        }
+
+        /**
+         * Gets the reason why the file failed.
+         *
+         * @return the error message, or {@code null} if the file was processed correctly
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * Checks whether the file was processed correctly.
+         *
+         * @return {@code true} if there was no error
+         */
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    void addSuccess(Path input, Path output, long bytes, long nanos, int key) {
+        entries.add(new Entry(input, output, bytes, nanos, key, null));
+    }
+
+    void addFailure(Path input, Path output, long nanos, int key, String error) {
+        entries.add(new Entry(input, output, 0, nanos, key, error));
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the outcome of every file, sorted by input path.
+     *
+     * @return a copy of the entries of the report
+     */
+    public List<Entry> getEntries() {
+        List<Entry> copy;
+        synchronized (entries) {
+            copy = new ArrayList<>(entries);
+        }
+        copy.sort(Comparator.comparing(Entry::getInput));
+        return copy;
+    }
+
+    /**
+     * Counts the files that could not be processed.
+     *
+     * @return the number of failed files
+     */
+    public int getFailureCount() {
+        int failures = 0;
+        for (Entry entry : getEntries()) {
+            if (!entry.isSuccess()) {
+                failures++;
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Prints one line per file followed by the totals of the run.
+     *
+     * @param out the stream to print to
+     */
+    public void print(PrintStream out) {
+        long totalBytes = 0;
+        int successes = 0;
+        List<Entry> sorted = getEntries();
+        for (Entry entry : sorted) {
+            if (entry.isSuccess()) {
+                successes++;
+                totalBytes += entry.getBytes();
+                out.printf("OK     %s -> %s (clave %d, %d bytes, %.1f ms, %.1f MB/s)%n", entry.getInput(), entry.getOutput(),
+                        entry.getKey(), entry.getBytes(), entry.getNanos() / 1e6, megabytesPerSecond(entry.getBytes(), entry.getNanos()));
+            } else {
+                out.printf("ERROR  %s: %s%n", entry.getInput(), entry.getError());
+            }
+        }
+        out.printf("Archivos procesados: %d, con error: %d, %d bytes en %.1f ms (%.1f MB/s)%n",
+                successes, sorted.size() - successes, totalBytes, elapsedNanos / 1e6, megabytesPerSecond(totalBytes, elapsedNanos));
+    }
+
+    private static double megabytesPerSecond(long bytes, long nanos) {
+        return nanos == 0 ? 0 : (bytes / (1024.0 * 1024.0)) / (nanos / 1e9);
+    }
+}
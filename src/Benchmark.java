@@ -0,0 +1,329 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * The {@code Benchmark} class measures the throughput of the cipher operations.
+ * It is a standalone program: run it with {@code java Benchmark [sizeInMB]}.
+ */
+
+public class Benchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    /**
+     * The main method that runs the benchmark.
+     *
+     * @param args optional size of the generated input in megabytes (default 16)
+     * @throws IOException if the temporary files of the file benchmark cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int sizeMb = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        String text = generateText(sizeMb * 1024 * 1024, 42L);
+        int key = 7;
+
+        // Comprobar que el motor de tablas produce exactamente la misma salida
+        String encrypted = CaesarCipher.encrypt(text, key);
+        if (!encrypted.equals(LegacyCipher.encrypt(text, key))
+                || !CaesarCipher.decrypt(encrypted, key).equals(LegacyCipher.decrypt(encrypted, key))) {
+            throw new IllegalStateException("La salida de las tablas no coincide con la implementación original");
+        }
+
+        System.out.println("Tamaño de entrada: " + sizeMb + " MB");
+        double legacy = measure("encrypt (búsqueda lineal)", text.length(), () -> LegacyCipher.encrypt(text, key));
+        double table = measure("encrypt (tabla)", text.length(), () -> CaesarCipher.encrypt(text, key));
+        measure("decrypt (búsqueda lineal)", text.length(), () -> LegacyCipher.decrypt(encrypted, key));
+        measure("decrypt (tabla)", text.length(), () -> CaesarCipher.decrypt(encrypted, key));
+        System.out.printf("Mejora de encrypt: %.1fx%n", table / legacy);
+
+        benchmarkFiles(generateText(sizeMb * 1024 * 1024, 42L, true), key);
+        benchmarkScaling(text, key);
+        benchmarkScoring(key);
+        benchmarkDictionary(500_000);
+    }
+
+    /**
+     * Measures how long a large dictionary takes to compile, to load once compiled, and how much
+     * heap the loaded table uses.
+     *
+     * @param words the number of generated words in the dictionary
+     * @throws IOException if the temporary files cannot be written
+     */
+    private static void benchmarkDictionary(int words) throws IOException {
+        Path wordList = Files.createTempFile("benchmark", ".txt");
+        Path compiled = Paths.get(wordList + WordTable.COMPILED_EXTENSION);
+        try {
+            Random random = new Random(11L);
+            StringBuilder list = new StringBuilder();
+            for (int i = 0; i < words; i++) {
+                int length = 3 + random.nextInt(10);
+                for (int j = 0; j < length; j++) {
+                    list.append((char) ('a' + random.nextInt(26)));
+                }
+                list.append('\n');
+            }
+            Files.write(wordList, list.toString().getBytes(StandardCharsets.UTF_8));
+
+            long start = System.nanoTime();
+            WordTable.compile(wordList, compiled);
+            long compileTime = System.nanoTime() - start;
+            System.gc();
+            long heapBefore = usedHeap();
+            start = System.nanoTime();
+            WordTable table = WordTable.open(compiled);
+            long openTime = System.nanoTime() - start;
+            long heapAfter = usedHeap();
+            System.out.printf("diccionario de %d palabras: compilar %d ms, abrir %.2f ms, %d KB de heap, %d MB en disco%n",
+                    table.size(), compileTime / 1_000_000, openTime / 1e6, Math.max(0, heapAfter - heapBefore) / 1024,
+                    Files.size(compiled) / (1024 * 1024));
+        } finally {
+            Files.deleteIfExists(wordList);
+            Files.deleteIfExists(compiled);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Compares the original regular-expression scorer with {@code BruteForce.scoreText}, checking that
+     * both give the same score and reporting calls per second and bytes allocated per call.
+     *
+     * @param key the key used to produce unreadable candidate texts
+     */
+    private static void benchmarkScoring(int key) {
+        BruteForce bruteForce = new BruteForce(new CaesarCipher());
+        LegacyScorer legacy = new LegacyScorer();
+        String plaintext = generateText(16 * 1024, 7L);
+        String garbage = CaesarCipher.decrypt(plaintext, key);
+        for (String sample : new String[] {plaintext, garbage, "¡Hola, MUNDO! Él dijo: \"adiós\", ñandú\tY\nNO."}) {
+            if (bruteForce.scoreText(sample) != legacy.score(sample)) {
+                throw new IllegalStateException("La puntuación no coincide con la implementación original: " + sample);
+            }
+        }
+        measureCalls("scoreText (regex)", () -> legacy.score(plaintext));
+        measureCalls("scoreText (sin asignaciones)", () -> bruteForce.scoreText(plaintext));
+    }
+
+    /**
+     * Runs an operation repeatedly and prints how many calls per second it sustains and how many
+     * bytes the current thread allocates per call.
+     *
+     * @param name the label printed next to the result
+     * @param operation the operation to measure
+     */
+    static void measureCalls(String name, Runnable operation) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        int calls = 200;
+        for (int i = 0; i < calls; i++) {
+            operation.run();
+        }
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            operation.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        System.out.printf("%-28s %10.0f ops/s %12d B/op%n", name, calls / (elapsed / 1e9), allocated / calls);
+    }
+
+    /**
+     * Measures {@code ParallelCipher} with one thread up to the number of available processors.
+     *
+     * @param text the text to encrypt
+     * @param key the key used to encrypt
+     */
+    private static void benchmarkScaling(String text, int key) {
+        String expected = CaesarCipher.encrypt(text, key);
+        double single = 0;
+        for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+            try (ParallelCipher cipher = new ParallelCipher(threads)) {
+                if (!cipher.encrypt(text, key).equals(expected)) {
+                    throw new IllegalStateException("La salida en paralelo no coincide con la secuencial");
+                }
+                double throughput = measure("encrypt (" + threads + " hilos)", text.length(), () -> cipher.encrypt(text, key));
+                if (threads == 1) {
+                    single = throughput;
+                } else {
+                    System.out.printf("  aceleración: %.2fx%n", throughput / single);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compares the streaming and the memory-mapped file paths of {@code FileManager} on an ASCII file,
+     * using a plain file copy as the upper bound.
+     *
+     * @param asciiText the ASCII content of the input file
+     * @param key the key used to encrypt
+     * @throws IOException if the temporary files cannot be written
+     */
+    private static void benchmarkFiles(String asciiText, int key) throws IOException {
+        Path input = Files.createTempFile("benchmark", ".txt");
+        Path output = Files.createTempFile("benchmark", ".out");
+        try {
+            Files.write(input, asciiText.getBytes(StandardCharsets.UTF_8));
+            measure("archivo (copia)", asciiText.length(), () -> io(() -> Files.copy(input, output, StandardCopyOption.REPLACE_EXISTING)));
+            measure("archivo (por bloques)", asciiText.length(), () -> io(() -> FileManager.streamFile(input, output, CaesarCipher.tableFor(key))));
+            measure("archivo (mapeado)", asciiText.length(), () -> io(() -> FileManager.mapFile(input, output, CaesarCipher.byteTableFor(key), ParallelCipher.SEQUENTIAL)));
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+
+    /**
+     * An I/O operation to be measured.
+     */
+    interface IoOperation {
+        void run() throws IOException;
+    }
+
+    /**
+     * Runs an I/O operation inside a {@code Runnable}, rethrowing its exception unchecked.
+     *
+     * @param operation the operation to run
+     */
+    static void io(IoOperation operation) {
+        try {
+            operation.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Runs an operation repeatedly and prints its average throughput.
+     *
+     * @param name the label printed next to the result
+     * @param chars the number of characters processed by one call
+     * @param operation the operation to measure
+     * @return the measured throughput in megabytes per second
+     */
+    static double measure(String name, long chars, Runnable operation) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            operation.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            operation.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        double mbPerSecond = (chars * (double) MEASURED_ROUNDS / (1024 * 1024)) / (elapsed / 1e9);
+        System.out.printf("%-28s %10.1f MB/s%n", name, mbPerSecond);
+        return mbPerSecond;
+    }
+
+    /**
+     * Generates deterministic text mixing Spanish words, punctuation and characters outside the alphabet.
+     *
+     * @param length the number of characters to generate
+     * @param seed the seed of the random generator
+     * @return the generated text
+     */
+    static String generateText(int length, long seed) {
+        return generateText(length, seed, false);
+    }
+
+    /**
+     * Generates deterministic text, optionally restricted to ASCII characters.
+     *
+     * @param length the number of characters to generate
+     * @param seed the seed of the random generator
+     * @param ascii whether to leave out accented letters and other non-ASCII characters
+     * @return the generated text
+     */
+    static String generateText(int length, long seed, boolean ascii) {
+        String[] words = ascii
+                ? new String[] {"el", "mensaje", "de", "prueba", "Cifrado", "nino", "tambien", "casa", "azul", "que?", "dia", "2024"}
+                : new String[] {"el", "mensaje", "de", "prueba", "Cifrado", "niño", "también", "casa", "azul", "¿qué?", "día", "2024"};
+        String[] separators = {" ", " ", " ", ", ", ". ", "\n", "; ", "! "};
+        Random random = new Random(seed);
+        StringBuilder builder = new StringBuilder(length + 16);
+        while (builder.length() < length) {
+            builder.append(words[random.nextInt(words.length)]);
+            builder.append(separators[random.nextInt(separators.length)]);
+        }
+        builder.setLength(length);
+        return builder.toString();
+    }
+
+    /**
+     * The original scorer of {@code BruteForce}, based on {@code split} and {@code replaceAll}, kept as a
+     * reference for score comparison and as the benchmark baseline.
+     */
+    private static final class LegacyScorer {
+        private final Set<String> dictionary = new HashSet<>(Arrays.asList(Language.SPANISH.getDictionaryWords()));
+        private final List<String> commonShortWords = Language.SPANISH.getCommonShortWords();
+
+        int score(String text) {
+            String[] words = text.toLowerCase().split("\\s+");
+            int totalScore = 0;
+            for (String word : words) {
+                word = word.replaceAll("[^a-zA-ZáéíóúÁÉÍÓÚñÑ]", "").toLowerCase();
+                if (!word.isEmpty()) {
+                    if (dictionary.contains(word)) {
+                        totalScore += word.length() * 2;
+                    }
+                    if (commonShortWords.contains(word)) {
+                        totalScore += 3;
+                    }
+                }
+            }
+            return totalScore;
+        }
+    }
+
+    /**
+     * The original linear-scan implementation of {@code CaesarCipher}, kept as a reference
+     * for output comparison and as the benchmark baseline.
+     */
+    private static final class LegacyCipher {
+        private static final char[] ALPHABET = {'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M', 'N', 'O', 'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z',
+                                                 'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z',
+                                                 ' ', '.', ',', ':', ';', '!', '?', '"', '\''};
+
+        static int findIndex(char c) {
+            for (int i = 0; i < ALPHABET.length; i++) {
+                if (ALPHABET[i] == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        static String encrypt(String plaintext, int key) {
+            StringBuilder result = new StringBuilder();
+            for (char character : plaintext.toCharArray()) {
+                int index = findIndex(character);
+                result.append(index != -1 ? ALPHABET[(index + key) % ALPHABET.length] : character);
+            }
+            return result.toString();
+        }
+
+        static String decrypt(String ciphertext, int key) {
+            StringBuilder result = new StringBuilder();
+            for (char character : ciphertext.toCharArray()) {
+                int index = findIndex(character);
+                result.append(index != -1 ? ALPHABET[(index - key + ALPHABET.length) % ALPHABET.length] : character);
+            }
+            return result.toString();
+        }
+    }
+}
@@ -0,0 +1,470 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+/**
+ * The {@code BenchmarkSuite} class runs the regression benchmarks of the project: cipher throughput
+ * by input size and character mix, brute force latency by ciphertext length, scoring speed and the
+ * file paths of {@code FileManager}. Every benchmark reports its score together with the bytes
+ * allocated per operation, the allocation rate and the garbage collections it caused. All corpora
+ * are generated from fixed seeds, so two runs measure exactly the same work.
+ *
+ * <p>Run it with {@code scripts/benchmark.sh}, or {@code java BenchmarkSuite [--quick] [--filter TEXT]
+ * [--save FILE] [--baseline FILE] [--tolerance FRACTION]}. With {@code --baseline} the exit code is
+ * 1 if any benchmark is slower than the saved one by more than the tolerance (10% by default).
+ */
+
+public class BenchmarkSuite {
+
+    private static final int KB = 1024;
+    private static final int MB = 1024 * 1024;
+    private static final int[] CIPHER_SIZES = {KB, 64 * KB, MB, 16 * MB};
+    private static final int[] CRACK_SIZES = {KB, 64 * KB, MB};
+    private static final int FILE_SIZE = 16 * MB;
+    private static final int KEY = 7;
+
+    /**
+     * The characters of a generated corpus.
+     */
+    enum Mix {
+        /** Spanish words without accents: every byte can take the memory-mapped byte path. */
+        ASCII,
+        /** Spanish words with accents, inverted marks and digits. */
+        MIXED,
+        /** Mostly characters outside the alphabet, which the cipher copies unchanged. */
+        SYMBOLS;
+
+        String generate(int length, long seed) {
+            if (this == SYMBOLS) {
+                String symbols = "0123456789áéíóúñÁÉÍÓÚÑ¿¡-_()[]{}\n\t€ab";
+                Random random = new Random(seed);
+                char[] text = new char[length];
+                for (int i = 0; i < length; i++) {
+                    text[i] = symbols.charAt(random.nextInt(symbols.length()));
+                }
+                return new String(text);
+            }
+            return Benchmark.generateText(length, seed, this == ASCII);
+        }
+
+        String label() {
+            return name().toLowerCase();
+        }
+    }
+
+    /**
+     * How a benchmark score is expressed.
+     */
+    enum Unit {
+        /** Megabytes of input per second; higher is better. */
+        MB_PER_SECOND("MB/s", true),
+        /** Operations per second; higher is better. */
+        OPS_PER_SECOND("ops/s", true),
+        /** Milliseconds per operation; lower is better. */
+        MS_PER_OP("ms/op", false);
+
+        private final String symbol;
+        private final boolean higherIsBetter;
+
+        Unit(String symbol, boolean higherIsBetter) {
+            this.symbol = symbol;
+            this.higherIsBetter = higherIsBetter;
+        }
+    }
+
+    /**
+     * The outcome of one benchmark.
+     */
+    static final class Result {
+        final String name;
+        final Unit unit;
+        final double score;
+        final long bytesPerOp;
+        final double allocationRate;
+        final long gcCount;
+        final long gcMillis;
+
+        Result(String name, Unit unit, double score, long bytesPerOp, double allocationRate, long gcCount, long gcMillis) {
+            this.name = name;
+            this.unit = unit;
+            this.score = score;
+            this.bytesPerOp = bytesPerOp;
+            this.allocationRate = allocationRate;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-34s %12.2f %-6s %12d B/op %9.1f MB/s asig. %4d GC %6d ms",
+                    name, score, unit.symbol, bytesPerOp, allocationRate, gcCount, gcMillis);
+        }
+    }
+
+    /** Keeps the results of the measured operations alive so the JIT cannot discard them. */
+    private static volatile int sink;
+
+    private final long warmupNanos;
+    private final long measureNanos;
+    private final String filter;
+    private final List<Result> results = new ArrayList<>();
+
+    private BenchmarkSuite(long warmupNanos, long measureNanos, String filter) {
+        this.warmupNanos = warmupNanos;
+        this.measureNanos = measureNanos;
+        this.filter = filter;
+    }
+
+    /**
+     * The main method that runs the suite.
+     *
+     * @param args the options described in the class documentation
+     * @throws IOException if the temporary files or the baseline cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        boolean quick = false;
+        String filter = "";
+        Path save = null;
+        Path baseline = null;
+        double tolerance = 0.10;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--quick":
+                    quick = true;
+                    break;
+                case "--filter":
+                    filter = args[++i];
+                    break;
+                case "--save":
+                    save = Paths.get(args[++i]);
+                    break;
+                case "--baseline":
+                    baseline = Paths.get(args[++i]);
+                    break;
+                case "--tolerance":
+                    tolerance = Double.parseDouble(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+        BenchmarkSuite suite = quick ? new BenchmarkSuite(500_000_000L, 500_000_000L, filter)
+                : new BenchmarkSuite(1_000_000_000L, 2_000_000_000L, filter);
+        System.out.printf("Java %s, %d procesadores, %d MB de heap máximo%n", System.getProperty("java.version"),
+                Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().maxMemory() / MB);
+        suite.benchmarkCipher();
+        suite.benchmarkKernel();
+        suite.benchmarkCrack();
+        suite.benchmarkScoring();
+        suite.benchmarkFiles();
+
+        if (save != null) {
+            suite.save(save);
+        }
+        if (baseline != null && suite.compare(baseline, tolerance) > 0) {
+            System.exit(1);
+        }
+    }
+
+    private void benchmarkCipher() {
+        for (Mix mix : Mix.values()) {
+            for (int size : CIPHER_SIZES) {
+                String text = mix.generate(size, 42L);
+                String encrypted = CaesarCipher.encrypt(text, KEY);
+                String suffix = "/" + mix.label() + "/" + sizeLabel(size);
+                run("cipher.encrypt" + suffix, Unit.MB_PER_SECOND, size, () -> CaesarCipher.encrypt(text, KEY).length());
+                run("cipher.decrypt" + suffix, Unit.MB_PER_SECOND, size, () -> CaesarCipher.decrypt(encrypted, KEY).length());
+            }
+        }
+    }
+
+    /**
+     * Checks the vector kernel byte for byte against the scalar loops and the {@code CaesarCipher}
+     * entry points on random inputs, then measures both on an ASCII buffer.
+     */
+    private void benchmarkKernel() {
+        TranslationKernel vector = TranslationKernel.VECTOR;
+        System.out.println(vector == null ? "Kernel vectorial no disponible: se mide solo el escalar"
+                : "Kernel vectorial: " + vector.getClass().getSimpleName());
+        if (vector != null) {
+            validateKernel(vector);
+        }
+        byte[] ascii = Mix.ASCII.generate(MB, 42L).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer source = ByteBuffer.allocateDirect(ascii.length).put(ascii).flip();
+        ByteBuffer target = ByteBuffer.allocateDirect(ascii.length);
+        char[] chars = Mix.MIXED.generate(MB, 42L).toCharArray();
+        TranslationTable table = CaesarCipher.tableFor(KEY);
+        if (table.bytes == null) {
+            return;
+        }
+        run("kernel.scalar/bytes/1MB", Unit.MB_PER_SECOND, ascii.length, () -> {
+            CaesarCipher.translateScalar(source, target, table.bytes);
+            return target.get(0);
+        });
+        run("kernel.scalar/chars/1MB", Unit.MB_PER_SECOND, chars.length, () -> {
+            table.translateScalar(chars, 0, chars.length);
+            return chars[0];
+        });
+        if (vector != null) {
+            run("kernel.vector/bytes/1MB", Unit.MB_PER_SECOND, ascii.length, () -> {
+                vector.translate(source, target, table.bytes);
+                return target.get(0);
+            });
+            run("kernel.vector/chars/1MB", Unit.MB_PER_SECOND, chars.length, () -> {
+                vector.translate(chars, 0, chars.length, table.chars);
+                return chars[0];
+            });
+        }
+    }
+
+    private static void validateKernel(TranslationKernel vector) {
+        Random random = new Random(99L);
+        for (int round = 0; round < 2000; round++) {
+            int key = random.nextInt(1000) - 500;
+            TranslationTable table = CaesarCipher.tableFor(key);
+            if (table.bytes == null) {
+                return;
+            }
+            int length = random.nextInt(3000);
+            int offset = random.nextInt(64);
+            // Mitad de las rondas con texto ASCII, mitad con cualquier byte o carácter
+            boolean ascii = round % 2 == 0;
+            byte[] bytes = new byte[offset + length];
+            char[] chars = new char[offset + length];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) (ascii ? random.nextInt(128) : random.nextInt(256));
+                chars[i] = (char) (ascii ? random.nextInt(128) : random.nextInt(Character.MAX_VALUE + 1));
+            }
+            ByteBuffer source = random.nextBoolean() ? ByteBuffer.wrap(bytes) : ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+            source.position(offset);
+            ByteBuffer expected = ByteBuffer.allocate(bytes.length);
+            ByteBuffer actual = ByteBuffer.allocateDirect(bytes.length);
+            expected.position(offset);
+            actual.position(offset);
+            CaesarCipher.translateScalar(source, expected, table.bytes);
+            vector.translate(source, actual, table.bytes);
+            char[] expectedChars = chars.clone();
+            table.translateScalar(expectedChars, offset, length);
+            vector.translate(chars, offset, length, table.chars);
+            String text = new String(chars, offset, length);
+            if (!expected.rewind().equals(actual.rewind()) || !Arrays.equals(expectedChars, chars)
+                    || !CaesarCipher.decrypt(CaesarCipher.encrypt(text, key), key).equals(text)
+                    || !CaesarCipher.encrypt(text, key).equals(reference(text, key))) {
+                throw new IllegalStateException("El kernel vectorial no coincide con el escalar (clave " + key + ", longitud " + length + ")");
+            }
+        }
+        System.out.println("Kernel vectorial validado con 2000 entradas aleatorias");
+    }
+
+    private static String reference(String text, int key) {
+        Alphabet alphabet = Alphabet.DEFAULT;
+        StringBuilder result = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int index = alphabet.indexOf(c);
+            result.append(index == -1 ? c : alphabet.charAt(Math.floorMod(index + key, alphabet.length())));
+        }
+        return result.toString();
+    }
+
+    private void benchmarkCrack() {
+        BruteForce bruteForce = new BruteForce(new CaesarCipher());
+        for (int size : CRACK_SIZES) {
+            String ciphertext = CaesarCipher.encrypt(Mix.MIXED.generate(size, 42L), KEY);
+            if (bruteForce.bruteForceSampled(ciphertext, BruteForce.DEFAULT_CONFIDENCE).getKey() != KEY
+                    || bruteForce.findKey(CaesarCipher.histogram(ciphertext)) != KEY) {
+                throw new IllegalStateException("La fuerza bruta no encuentra la clave del texto generado");
+            }
+            String suffix = "/" + sizeLabel(size);
+            run("crack.dictionary" + suffix, Unit.MS_PER_OP, size,
+                    () -> bruteForce.bruteForceSampled(ciphertext, BruteForce.DEFAULT_CONFIDENCE).getKey());
+            run("crack.frequency" + suffix, Unit.MS_PER_OP, size, () -> bruteForce.findKey(CaesarCipher.histogram(ciphertext)));
+        }
+    }
+
+    private void benchmarkScoring() {
+        for (Language language : Language.values()) {
+            BruteForce bruteForce = new BruteForce(new CaesarCipher(), language);
+            String plaintext = Mix.MIXED.generate(16 * KB, 7L);
+            String garbage = CaesarCipher.decrypt(plaintext, KEY);
+            run("score." + language.getCode() + "/plaintext/16KB", Unit.OPS_PER_SECOND, plaintext.length(),
+                    () -> bruteForce.scoreText(plaintext));
+            run("score." + language.getCode() + "/garbage/16KB", Unit.OPS_PER_SECOND, garbage.length(),
+                    () -> bruteForce.scoreText(garbage));
+        }
+    }
+
+    private void benchmarkFiles() throws IOException {
+        for (Mix mix : new Mix[] {Mix.ASCII, Mix.MIXED}) {
+            Path input = Files.createTempFile("benchmark", ".txt");
+            Path output = Files.createTempFile("benchmark", ".out");
+            try (ParallelCipher parallel = new ParallelCipher(Runtime.getRuntime().availableProcessors())) {
+                Files.write(input, mix.generate(FILE_SIZE, 42L).getBytes(StandardCharsets.UTF_8));
+                long bytes = Files.size(input);
+                String suffix = "/" + mix.label() + "/" + sizeLabel(FILE_SIZE);
+                run("file.read" + suffix, Unit.MB_PER_SECOND, bytes, () -> {
+                    Benchmark.io(() -> sink += (int) FileManager.countSymbols(input)[0]);
+                    return 0;
+                });
+                run("file.stream" + suffix, Unit.MB_PER_SECOND, bytes, () -> {
+                    Benchmark.io(() -> FileManager.transform(input, output, KEY, true, ParallelCipher.SEQUENTIAL, FileManager.Mode.STREAM));
+                    return 0;
+                });
+                run("file.mmap" + suffix, Unit.MB_PER_SECOND, bytes, () -> {
+                    Benchmark.io(() -> FileManager.transform(input, output, KEY, true, ParallelCipher.SEQUENTIAL, FileManager.Mode.MMAP));
+                    return 0;
+                });
+                run("file.parallel" + suffix, Unit.MB_PER_SECOND, bytes, () -> {
+                    Benchmark.io(() -> FileManager.transform(input, output, KEY, true, parallel, FileManager.Mode.MMAP));
+                    return 0;
+                });
+                run("file.copy" + suffix, Unit.MB_PER_SECOND, bytes, () -> {
+                    Benchmark.io(() -> {
+                        try (InputStream in = Files.newInputStream(input); OutputStream out = Files.newOutputStream(output)) {
+                            in.transferTo(out);
+                        }
+                    });
+                    return 0;
+                });
+            } finally {
+                Files.deleteIfExists(input);
+                Files.deleteIfExists(output);
+            }
+        }
+    }
+
+    /**
+     * Warms an operation up and then calls it repeatedly for the measurement time, recording its
+     * score, the bytes allocated by every thread and the garbage collections during the measurement.
+     *
+     * @param name the name of the benchmark
+     * @param unit how the score is expressed
+     * @param bytes the size of the input processed by one call
+     * @param operation the operation to measure; its result is consumed so it cannot be optimized away
+     */
+    private void run(String name, Unit unit, long bytes, IntSupplier operation) {
+        if (!name.contains(filter)) {
+            return;
+        }
+        long end = System.nanoTime() + warmupNanos;
+        while (System.nanoTime() < end) {
+            sink += operation.getAsInt();
+        }
+        System.gc();
+        long allocatedBefore = allocatedBytes();
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        long operations = 0;
+        long start = System.nanoTime();
+        end = start + measureNanos;
+        long now;
+        do {
+            sink += operation.getAsInt();
+            operations++;
+            now = System.nanoTime();
+        } while (now < end);
+        double seconds = (now - start) / 1e9;
+        long allocated = allocatedBytes() - allocatedBefore;
+        double score;
+        switch (unit) {
+            case MB_PER_SECOND:
+                score = bytes * (double) operations / MB / seconds;
+                break;
+            case OPS_PER_SECOND:
+                score = operations / seconds;
+                break;
+            default:
+                score = seconds * 1000 / operations;
+        }
+        Result result = new Result(name, unit, score, allocated / operations, allocated / (double) MB / seconds,
+                gcCount() - gcCountBefore, gcMillis() - gcMillisBefore);
+        results.add(result);
+        System.out.println(result);
+    }
+
+    /**
+     * Adds up the bytes allocated by every live thread, including the pools used by the parallel paths.
+     */
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (long allocated : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            total += Math.max(0, allocated);
+        }
+        return total;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+
+    private static String sizeLabel(int size) {
+        return size >= MB ? size / MB + "MB" : size / KB + "KB";
+    }
+
+    private void save(Path path) throws IOException {
+        Properties scores = new Properties();
+        for (Result result : results) {
+            scores.setProperty(result.name, Double.toString(result.score));
+        }
+        try (OutputStream out = Files.newOutputStream(path)) {
+            scores.store(out, "Puntuaciones de BenchmarkSuite");
+        }
+        System.out.println("Resultados guardados en " + path);
+    }
+
+    /**
+     * Compares the results with a saved baseline and prints every benchmark that got worse by more
+     * than the tolerance. Benchmarks missing from the baseline are ignored.
+     *
+     * @return the number of regressions
+     */
+    private int compare(Path path, double tolerance) throws IOException {
+        Properties baseline = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            baseline.load(in);
+        }
+        int regressions = 0;
+        for (Result result : results) {
+            String saved = baseline.getProperty(result.name);
+            if (saved == null) {
+                continue;
+            }
+            double previous = Double.parseDouble(saved);
+            // Proporción de empeoramiento respecto a la línea base, según el sentido de la unidad
+            double change = result.unit.higherIsBetter ? (previous - result.score) / previous : (result.score - previous) / previous;
+            if (change > tolerance) {
+                regressions++;
+                System.out.printf("REGRESIÓN  %-34s %.2f -> %.2f %s (%.0f%% peor)%n",
+                        result.name, previous, result.score, result.unit.symbol, change * 100);
+            }
+        }
+        System.out.println(regressions == 0 ? "Sin regresiones respecto a " + path : regressions + " regresiones respecto a " + path);
+        return regressions;
+    }
+}
@@ -1,7 +1,11 @@
-import java.util.Set;
-import java.util.HashSet;
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 /**
  * The {@code BruteForce} class provides methods to perform a brute force attack
@@ -10,139 +14,538 @@ import java.util.Arrays;
 
 public class BruteForce {
 
+    /**
+     * Default confidence required by {@link #bruteForceSampled(String, double)} to stop early.
+     */
+    public static final double DEFAULT_CONFIDENCE = 0.5;
+
+    /**
+     * Lengths of the growing prefixes scored by {@link #bruteForceSampled(String, double)}
+     * before falling back to the whole text.
+     */
+    private static final int[] SAMPLE_SIZES = {4 * 1024, 64 * 1024, 1024 * 1024};
+
+    /**
+     * Keys scoring below this fraction of the leading score are discarded between samples.
+     */
+    private static final double PRUNE_RATIO = 0.25;
+
+    /**
+     * Number of characters of each candidate decryption printed in verbose mode.
+     */
+    private static final int PREVIEW_LENGTH = 60;
+
+    /**
+     * Per-thread buffer holding the folded letters of the word being scored. Longer words are
+     * looked up directly from the text.
+     */
+    private static final ThreadLocal<char[]> WORD_BUFFER = ThreadLocal.withInitial(() -> new char[64]);
+
     private CaesarCipher cipher;
-    private Set<String> dictionary;
+    private Alphabet alphabet;
+    private Language language;
+    private WordTable dictionary;
+    private WordTable commonShortWords;
+    private double[] symbolLogProbabilities;
+    private volatile boolean verbose;
+    private volatile KeyCache keyCache;
 
     /**
-     * Constructs a {@code BruteForce} object with the specified {@code CaesarCipher}.
+     * Constructs a {@code BruteForce} object with the specified {@code CaesarCipher}, recognizing
+     * Spanish text with the built-in dictionary.
      *
      * @param cipher the {@code CaesarCipher} object used for decryption
      */
 
     public BruteForce(CaesarCipher cipher) {
+        this(cipher, Language.SPANISH);
+    }
+
+    /**
+     * Constructs a {@code BruteForce} object that recognizes the specified language with its built-in dictionary.
+     *
+     * @param cipher the {@code CaesarCipher} object used for decryption
+     * @param language the language of the expected plaintext
+     */
+    public BruteForce(CaesarCipher cipher, Language language) {
+        this(cipher, language, WordTable.of(Arrays.asList(language.getDictionaryWords())));
+    }
+
+    /**
+     * Constructs a {@code BruteForce} object that recognizes the specified language with the given
+     * dictionary, for example one loaded with {@link WordTable#load(java.nio.file.Path)}.
+     *
+     * @param cipher the {@code CaesarCipher} object used for decryption
+     * @param language the language of the expected plaintext
+     * @param dictionary the words that make a text readable
+     */
+    public BruteForce(CaesarCipher cipher, Language language, WordTable dictionary) {
         this.cipher = cipher;
-        this.dictionary = loadDictionary();
+        this.alphabet = cipher.getAlphabetDefinition();
+        this.language = language;
+        this.dictionary = dictionary;
+        this.commonShortWords = WordTable.of(language.getCommonShortWords());
+        this.symbolLogProbabilities = loadSymbolLogProbabilities(cipher.getAlphabet());
     }
 
     /**
      * Attempts to brute force decrypt the provided ciphertext using all possible keys.
-     * The best decryption result is determined by scoring the decrypted text.
+     * The best decryption result is determined by scoring the decrypted text. Keys are evaluated in
+     * parallel; ties go to the smallest key, so the result is the same as trying them in order.
      *
      * @param ciphertext the encrypted text to be brute-forced
      * @return the best plaintext result after attempting decryption with all possible keys
      */
     public String bruteForce(String ciphertext) {
-        String bestPlaintext = "";
+        KeyCache.Fingerprint fingerprint = null;
+        if (keyCache != null) {
+            fingerprint = KeyCache.fingerprint(ciphertext, context());
+            Integer cachedKey = keyCache.get(fingerprint);
+            if (cachedKey != null) {
+                return decrypt(ciphertext, cachedKey);
+            }
+        }
+        int[] scores = new int[cipher.getAlphabetLength()];
+        String[] previews = new String[scores.length];
+        long start = System.nanoTime();
+        // Las claves se evalúan en paralelo; el resultado no depende del orden de ejecución
+        IntStream.range(0, scores.length).parallel().forEach(key -> {
+            String decrypted = decrypt(ciphertext, key);
+            scores[key] = scoreText(decrypted);
+            if (verbose) {
+                previews[key] = preview(decrypted);
+            }
+        });
+        Metrics.GLOBAL.recordPhase(Metrics.Phase.SCORE, System.nanoTime() - start);
+        Metrics.GLOBAL.recordKeys(scores.length);
+
         int bestKey = -1;
         int bestScore = -1;
-
-        for (int key = 0; key < cipher.getAlphabetLength(); key++) {
-            String decrypted = cipher.decrypt(ciphertext, key);
-            int score = scoreText(decrypted);
-
-            System.out.println("Key: " + key + ", Decrypted: " + decrypted + ", Score: " + score);
-
-            if (score > bestScore) {
-                bestScore = score;
-                bestPlaintext = decrypted;
+        for (int key = 0; key < scores.length; key++) {
+            if (verbose) {
+                System.out.println("Key: " + key + ", Decrypted: " + previews[key] + ", Score: " + scores[key]);
+            }
+            // En caso de empate gana la clave menor, como en la búsqueda secuencial
+            if (scores[key] > bestScore) {
+                bestScore = scores[key];
                 bestKey = key;
             }
         }
 
         System.out.println("Best key found: " + bestKey + " with score: " + bestScore);
-        return bestPlaintext;
+        if (fingerprint != null) {
+            keyCache.put(fingerprint, bestKey);
+        }
+        return decrypt(ciphertext, bestKey);
     }
 
     /**
-     * Scores the provided text based on the number of valid words found in the dictionary.
-     * A higher score indicates a more readable and valid plaintext.
+     * Enables or disables printing each candidate key with the start of its decryption and its score.
+     * It is disabled by default.
      *
-     * @param text the text to be scored
-     * @return the score of the text based on dictionary matches and structure
+     * @param verbose {@code true} to print every candidate key
      */
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
 
-    private int scoreText(String text) {
-        String[] words = text.toLowerCase().split("\\s+");
-        int validWords = 0;
-        int totalScore = 0;
-
-
-        // Verificar estructura de oraciones
-        if (text.matches(".*[A-Z][a-z]+.*") && // Comienza con mayúscula
-                text.contains(".") &&  // Tiene puntos
-                words.length > 3) {    // Tiene más de 3 palabras
+    /**
+     * Sets the cache of recovered keys. When a ciphertext is found in it, the cracking methods
+     * that take a text or a file skip scoring and decrypt once with the cached key; every key they
+     * recover is added to it. There is no cache by default.
+     *
+     * @param keyCache the cache to use, possibly shared with other {@code BruteForce} objects, or {@code null}
+     */
+    public void setKeyCache(KeyCache keyCache) {
+        this.keyCache = keyCache;
+    }
 
-        }
+    /**
+     * Gets the cache of recovered keys.
+     *
+     * @return the key cache, or {@code null} if there is none
+     */
+    public KeyCache getKeyCache() {
+        return keyCache;
+    }
 
+    /**
+     * Gets the alphabet of the cipher.
+     *
+     * @return the alphabet whose characters are shifted
+     */
+    Alphabet getAlphabet() {
+        return alphabet;
+    }
 
-        for (String word : words) {
-            // Limpiar caracteres especiales y convertir a minúsculas
-            word = word.replaceAll("[^a-zA-ZáéíóúÁÉÍÓÚñÑ]", "").toLowerCase();
+    /**
+     * Gets the logarithm of the expected frequency of each alphabet character in plain text, as used
+     * by {@link #findKey(long[])}.
+     *
+     * @return a copy of the log-probability of each alphabet position
+     */
+    double[] getSymbolLogProbabilities() {
+        return symbolLogProbabilities.clone();
+    }
 
-            if (!word.isEmpty()) {
-                if (dictionary.contains(word) || COMMON_SHORT_WORDS.contains(word)) {
-                    validWords++;
+    /**
+     * Tells apart in the key cache the ciphertexts cracked for different alphabets or languages.
+     */
+    private int context() {
+        return 31 * alphabet.hashCode() + language.getCode().hashCode();
+    }
 
-                    // Dar más puntos según la longitud de la palabra
-                    if (dictionary.contains(word)) {
-                        totalScore += word.length() * 2; // Más peso a palabras del diccionario
-                    }
+    private static String preview(String text) {
+        return text.length() <= PREVIEW_LENGTH ? text : text.substring(0, PREVIEW_LENGTH) + "...";
+    }
 
-                    // Bonus adicional para palabras cortas comunes
-                    if (COMMON_SHORT_WORDS.contains(word)) {
-                        totalScore += 3; // Bonus para palabras cortas
+    /**
+     * Attempts to brute force decrypt the provided ciphertext scoring only as much of it as needed.
+     * The keys are scored on growing prefixes of the text (4 KB, 64 KB, 1 MB and then the rest);
+     * after each one, keys clearly beaten by the leader are discarded, and the search stops as soon as
+     * the leader is ahead of the runner-up by the requested margin. The keys of each sample are scored
+     * in parallel. The full text is decrypted only once, with the chosen key.
+     *
+     * @param ciphertext the encrypted text to be brute-forced
+     * @param confidence the required margin of the best score over the second one, relative to the
+     *                   best score, from {@code 0} (stop after the first sample) to {@code 1} (score
+     *                   the whole text unless only one key finds words)
+     * @return the chosen key, how it compared with the runner-up and the decrypted text
+     * @throws IllegalArgumentException if {@code confidence} is not between 0 and 1
+     */
+    public CrackResult bruteForceSampled(String ciphertext, double confidence) {
+        if (confidence < 0 || confidence > 1) {
+            throw new IllegalArgumentException("La confianza debe estar entre 0 y 1");
+        }
+        KeyCache.Fingerprint fingerprint = null;
+        if (keyCache != null) {
+            fingerprint = KeyCache.fingerprint(ciphertext, context());
+            Integer cachedKey = keyCache.get(fingerprint);
+            if (cachedKey != null) {
+                return new CrackResult(cachedKey, decrypt(ciphertext, cachedKey));
+            }
+        }
+        int length = cipher.getAlphabetLength();
+        boolean[] discarded = new boolean[length];
+        int[] scores = new int[length];
+        int examined = 0;
+        int bestKey = 0;
+        int runnerUpKey = -1;
+        for (int round = 0; examined < ciphertext.length() || round == 0; round++) {
+            int end = round < SAMPLE_SIZES.length ? Math.min(SAMPLE_SIZES[round], ciphertext.length()) : ciphertext.length();
+            // Solo se puntúa la parte nueva de la muestra; las puntuaciones se acumulan
+            String sample = ciphertext.substring(examined, end);
+            examined = end;
+            long start = System.nanoTime();
+            IntStream.range(0, length).parallel()
+                    .filter(key -> !discarded[key])
+                    .forEach(key -> scores[key] += scoreText(decrypt(sample, key)));
+            Metrics.GLOBAL.recordPhase(Metrics.Phase.SCORE, System.nanoTime() - start);
+            int candidates = 0;
+            for (boolean dropped : discarded) {
+                candidates += dropped ? 0 : 1;
+            }
+            Metrics.GLOBAL.recordKeys(candidates);
+            bestKey = -1;
+            runnerUpKey = -1;
+            for (int key = 0; key < length; key++) {
+                if (discarded[key]) {
+                    continue;
+                }
+                if (bestKey == -1 || scores[key] > scores[bestKey]) {
+                    runnerUpKey = bestKey;
+                    bestKey = key;
+                } else if (runnerUpKey == -1 || scores[key] > scores[runnerUpKey]) {
+                    runnerUpKey = key;
+                }
+            }
+            int bestScore = scores[bestKey];
+            if (bestScore > 0) {
+                int runnerUpScore = runnerUpKey == -1 ? 0 : scores[runnerUpKey];
+                if ((bestScore - runnerUpScore) >= confidence * bestScore) {
+                    break;
+                }
+                for (int key = 0; key < length; key++) {
+                    if (key != bestKey && key != runnerUpKey && scores[key] < bestScore * PRUNE_RATIO) {
+                        discarded[key] = true;
                     }
                 }
             }
         }
+        if (fingerprint != null) {
+            keyCache.put(fingerprint, bestKey);
+        }
+        return new CrackResult(bestKey, scores[bestKey], runnerUpKey, runnerUpKey == -1 ? 0 : scores[runnerUpKey],
+                examined, decrypt(ciphertext, bestKey));
+    }
 
-        return totalScore;
+    /**
+     * Finds the most likely key of a ciphertext with {@link #findKey(long[])}, scanning the text once
+     * to build its histogram. When the key cache already holds the text, its key is returned without
+     * scoring; otherwise the key found is added to the cache.
+     *
+     * @param ciphertext the encrypted text to be analyzed
+     * @return the most likely key
+     */
+    public int findKey(String ciphertext) {
+        KeyCache.Fingerprint fingerprint = null;
+        if (keyCache != null) {
+            fingerprint = KeyCache.fingerprint(ciphertext, context());
+            Integer cachedKey = keyCache.get(fingerprint);
+            if (cachedKey != null) {
+                return cachedKey;
+            }
+        }
+        int key = findKey(alphabet.histogram(ciphertext));
+        if (fingerprint != null) {
+            keyCache.put(fingerprint, key);
+        }
+        return key;
     }
 
     /**
-     * Loads a dictionary of common words to be used for scoring decrypted text.
+     * Finds the most likely key of an encrypted file with {@link #findKey(long[])}, reading the file
+     * in chunks to build its histogram. When the key cache already holds the file, only a sample of
+     * it is read. Of a compressed file only the first {@link CompressionPipeline#SAMPLE_CHARS}
+     * characters are decompressed and analyzed.
      *
-     * @return a {@code Set} of strings containing common dictionary words
+     * @param path the encrypted file
+     * @return the most likely key
+     * @throws IOException if an I/O error occurs while reading the file
      */
+    public int findKey(Path path) throws IOException {
+        KeyCache.Fingerprint fingerprint = null;
+        if (keyCache != null) {
+            fingerprint = KeyCache.fingerprint(path, context());
+            Integer cachedKey = keyCache.get(fingerprint);
+            if (cachedKey != null) {
+                return cachedKey;
+            }
+        }
+        // De un archivo comprimido basta el principio: no hace falta descomprimirlo entero
+        int key = findKey(CompressionPipeline.isCompressed(path)
+                ? CompressionPipeline.countSymbols(path, CompressionPipeline.SAMPLE_CHARS)
+                : FileManager.countSymbols(path));
+        if (fingerprint != null) {
+            keyCache.put(fingerprint, key);
+        }
+        return key;
+    }
 
-    private Set<String> loadDictionary() {
-        // Carga un diccionario más completo desde un archivo o base de datos
-        // Por ejemplo, puedes utilizar el diccionario de la Real Academia Española (RAE)
-        String[] words = {
-                "de","del","la","el","un","una","los","las","y","o","no",
-                "que","en","es","lo","lo","por","para","con","un","una",
-                "yo","tu","el","ella","nosotros","ellos","ellas","me","te","lo","la","los","las","y","o","no",
-                "este", "es",  "mensaje",  "prueba",
-                "ser","tener","hacer","decir","ir","venir","ver","dar","tomar",
-                "muy","bien","mal","poco","mucho","poca","mucha","pocos","muchos","poca","mucha",
-                "rápido","lento","alto","bajo","grande","pequeño","grande","pequeño","grande","pequeño",
-                "casa", "el", "perro", "la", "gata",
-                "hombre","mujer","niño","niña","niños","niñas","hombres","mujeres","niños","niñas",
-                "manzana","pera","uva","manzanas","peras","uvas","manzana","pera","uva","manzanas","peras",
-                "mundo","cielo","tierra","agua","fuego","aire","viento","lluvia","nieve","sol","luna","estrellas","planetas",
-                "rojo","azul","verde","amarillo","morado","rosa","negro","blanco","gris","naranja",
-                "rápido","lento","alto","bajo","grande","pequeño",
-                "aquí","allí","dónde","cuándo","porqué","cómo","cuánto","cuántos","cuántas","cuál",
-                "ahora","entonces","también","así","también",
-                "luego","siempre","estas",
-                "hola","adios","buenos","días","noches","buenas","tardes","buenas","noches",
-                "mensaje","prueba","cifrado","descifrado","criptografía","criptoanálisis","criptografía","criptoanálisis"
-                
-                
+    /**
+     * Finds the most likely key from the histogram of a ciphertext. Each of the possible keys rotates
+     * the histogram and is scored by the log-likelihood of the result under the letter frequencies of
+     * the language of this object, so the cost does not depend on the text length.
+     *
+     * @param counts the number of occurrences of each character of the cipher alphabet, as built by
+     *               {@link Alphabet#histogram(CharSequence)}
+     * @return the most likely key; ties go to the smallest key
+     */
+    public int findKey(long[] counts) {
+        int length = cipher.getAlphabetLength();
+        long start = System.nanoTime();
+        int bestKey = 0;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int key = 0; key < length; key++) {
+            double score = 0;
+            for (int index = 0; index < length; index++) {
+                if (counts[index] != 0) {
+                    score += counts[index] * symbolLogProbabilities[Math.floorMod(index - key, length)];
+                }
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestKey = key;
+            }
+        }
+        Metrics.GLOBAL.recordPhase(Metrics.Phase.SCORE, System.nanoTime() - start);
+        Metrics.GLOBAL.recordKeys(length);
+        return bestKey;
+    }
 
+    /**
+     * Finds the most likely key of several ciphertexts at once, as {@link #findKey(long[])} would for
+     * each of them. Texts already in the key cache are not scored, identical texts are scored once,
+     * and the rest share one pass over the candidate keys, so a batch of small requests costs little
+     * more than the largest of them.
+     *
+     * @param ciphertexts the texts to crack
+     * @return the most likely key of each text, in the same order
+     */
+    public int[] findKeys(List<? extends CharSequence> ciphertexts) {
+        int count = ciphertexts.size();
+        int[] keys = new int[count];
+        KeyCache.Fingerprint[] fingerprints = new KeyCache.Fingerprint[count];
+        // Cada texto distinto sin clave en la caché se puntúa una sola vez
+        Map<KeyCache.Fingerprint, Integer> distinct = new HashMap<>();
+        int[] slots = new int[count];
+        List<long[]> histograms = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            CharSequence ciphertext = ciphertexts.get(i);
+            fingerprints[i] = KeyCache.fingerprint(ciphertext, context());
+            Integer cachedKey = keyCache == null ? null : keyCache.get(fingerprints[i]);
+            if (cachedKey != null) {
+                keys[i] = cachedKey;
+                slots[i] = -1;
+                continue;
+            }
+            Integer slot = distinct.get(fingerprints[i]);
+            if (slot == null) {
+                slot = histograms.size();
+                distinct.put(fingerprints[i], slot);
+                histograms.add(alphabet.histogram(ciphertext));
+            }
+            slots[i] = slot;
+        }
+        if (histograms.isEmpty()) {
+            return keys;
+        }
+        int length = cipher.getAlphabetLength();
+        long start = System.nanoTime();
+        int[] bestKeys = new int[histograms.size()];
+        double[] bestScores = new double[histograms.size()];
+        Arrays.fill(bestScores, Double.NEGATIVE_INFINITY);
+        double[] scores = new double[histograms.size()];
+        for (int key = 0; key < length; key++) {
+            Arrays.fill(scores, 0);
+            for (int index = 0; index < length; index++) {
+                double logProbability = symbolLogProbabilities[Math.floorMod(index - key, length)];
+                for (int slot = 0; slot < scores.length; slot++) {
+                    scores[slot] += histograms.get(slot)[index] * logProbability;
+                }
+            }
+            for (int slot = 0; slot < scores.length; slot++) {
+                if (scores[slot] > bestScores[slot]) {
+                    bestScores[slot] = scores[slot];
+                    bestKeys[slot] = key;
+                }
+            }
+        }
+        Metrics.GLOBAL.recordPhase(Metrics.Phase.SCORE, System.nanoTime() - start);
+        Metrics.GLOBAL.recordKeys((long) length * histograms.size());
+        for (int i = 0; i < count; i++) {
+            if (slots[i] >= 0) {
+                keys[i] = bestKeys[slots[i]];
+                if (keyCache != null) {
+                    keyCache.put(fingerprints[i], keys[i]);
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Scores the provided text based on the number of valid words found in the dictionary.
+     * A higher score indicates a more readable and valid plaintext.
+     *
+     * <p>The text is walked once: words are the runs between ASCII whitespace, and the letters of each
+     * one are folded to lower case into a reusable per-thread buffer and looked up from there, so no
+     * substring nor temporary array is created.</p>
+     *
+     * @param text the text to be scored
+     * @return the score of the text based on dictionary matches
+     */
+
+    int scoreText(CharSequence text) {
+        char[] word = WORD_BUFFER.get();
+        int totalScore = 0;
+        int words = 0;
+        int hits = 0;
+        int length = text.length();
+        int start = 0;
+        while (start < length) {
+            while (start < length && isWhitespace(text.charAt(start))) {
+                start++;
+            }
+            int end = start;
+            while (end < length && !isWhitespace(text.charAt(end))) {
+                end++;
+            }
+            int letters = WordTable.fold(text, start, end, word);
+            if (letters > 0) {
+                boolean inDictionary;
+                boolean common;
+                if (letters <= word.length) {
+                    int hash = WordTable.hash(word, letters);
+                    inDictionary = dictionary.contains(word, letters, hash);
+                    common = commonShortWords.contains(word, letters, hash);
+                } else {
+                    inDictionary = dictionary.contains(text, start, end);
+                    common = commonShortWords.contains(text, start, end);
+                }
+                words++;
+                if (inDictionary) {
+                    hits++;
+                    // Más peso a palabras del diccionario según su longitud
+                    totalScore += letters * 2;
+                }
+                if (common) {
+                    // Bonus adicional para palabras cortas comunes
+                    totalScore += 3;
+                }
+            }
+            start = end;
+        }
+        Metrics.GLOBAL.recordWords(words, hits);
+        return totalScore;
+    }
 
-                // Agrega más palabras al diccionario
-        };
-        return new HashSet<>(Arrays.asList(words));
+    /**
+     * Decrypts a text with the alphabet of the cipher.
+     *
+     * @param ciphertext the text to decrypt
+     * @param key the key to try
+     * @return the decrypted text
+     */
+    private String decrypt(String ciphertext, int key) {
+        char[] chars = ciphertext.toCharArray();
+        TableRegistry.SHARED.get(alphabet, -key).translate(chars, 0, chars.length);
+        return new String(chars);
     }
 
     /**
-     * A list of common short words to help score text, especially when analyzing small or common phrases.
+     * Checks whether a character separates words, matching the {@code \s} class of regular expressions.
+     *
+     * @param c the character to check
+     * @return {@code true} if the character is ASCII whitespace
      */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
 
-    private static final List<String> COMMON_SHORT_WORDS = Arrays.asList(
-            "the", "be", "to", "of", "and", "a", "in", "that", "have", "i",
-            "it", "for", "not", "on", "with", "he", "as", "you", "do", "at",
-            "de", "la", "el", "un", "una", "los", "las", "y", "o", "no"
-    );
+    /**
+     * Computes the logarithm of the expected frequency of each alphabet character in plain text. Letters
+     * follow their frequency in the configured language, mostly in lower case; spaces and common
+     * punctuation get their usual share, and any other character a small floor.
+     *
+     * @param alphabet the alphabet of the cipher
+     * @return the log-probability of each alphabet position
+     */
+    private double[] loadSymbolLogProbabilities(char[] alphabet) {
+        double[] weights = new double[alphabet.length];
+        double total = 0;
+        for (int i = 0; i < alphabet.length; i++) {
+            char c = alphabet[i];
+            if (Character.isLowerCase(c)) {
+                weights[i] = 0.80 * language.letterFrequency(c);
+            } else if (Character.isUpperCase(c)) {
+                weights[i] = 0.03 * language.letterFrequency(Character.toLowerCase(c));
+            } else if (c == ' ') {
+                weights[i] = 0.16;
+            } else if (c == ',') {
+                weights[i] = 0.008;
+            } else if (c == '.') {
+                weights[i] = 0.006;
+            } else {
+                weights[i] = 0.0005;
+            }
+            weights[i] = Math.max(weights[i], 0.00001);
+            total += weights[i];
+        }
+        double[] logProbabilities = new double[alphabet.length];
+        for (int i = 0; i < alphabet.length; i++) {
+            logProbabilities[i] = Math.log(weights[i] / total);
+        }
+        return logProbabilities;
+    }
 }
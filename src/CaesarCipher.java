@@ -1,3 +1,4 @@
+import java.nio.ByteBuffer;
 
 /**
  * The {@code CaesarCipher} class provides methods to encrypt and decrypt text using
@@ -6,38 +7,50 @@
  */
 
 public class CaesarCipher {
-   
-    private int shift;
 
-    private static final char[] ALPHABET = {'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M', 'N', 'O', 'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z',
-                                             'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z',
-                                              ' ', '.', ',', ':', ';', '!', '?', '"', '\''};
+    /**
+     * The alphabet of the static methods: the one configured with {@code cripto.alfabeto}.
+     */
+    private static final Alphabet ALPHABET = Alphabet.DEFAULT;
 
+    private final Alphabet alphabet;
 
     /**
-     * Constructs a {@code CaesarCipher} object with the specified shift value.
+     * Constructs a {@code CaesarCipher} object for the configured alphabet, {@link Alphabet#DEFAULT}.
+     */
+    public CaesarCipher() {
+        this(Alphabet.DEFAULT);
+    }
+
+    /**
+     * Constructs a {@code CaesarCipher} object for the given alphabet.
      *
-     * @param shift the number of positions to shift the characters
+     * @param alphabet the characters to shift
      */
+    public CaesarCipher(Alphabet alphabet) {
+        this.alphabet = alphabet;
+    }
 
-    public CaesarCipher(int shift   ) {
-        this.shift = shift;
+    /**
+     * Constructs a {@code CaesarCipher} object. The shift was never used by the instance methods.
+     *
+     * @param shift ignored
+     * @deprecated use {@link #CaesarCipher()}, or {@link ShiftCipher#of(int)} for a cipher bound to a key
+     */
+    @Deprecated
+    public CaesarCipher(int shift) {
+        this();
     }
 
     /**
-     * Finds the index of a character in the {@code ALPHABET} array.
+     * Finds the index of a character in the default alphabet.
      *
      * @param c the character to find
      * @return the index of the character if found, or {@code -1} if the character is not in the alphabet
      */
 
     public static int findIndex(char c) {
-        for (int i = 0; i < ALPHABET.length; i++) {
-            if (ALPHABET[i] == c) {
-                return i;
-            }
-        }
-        return -1;
+        return ALPHABET.indexOf(c);
     }
 
 
@@ -50,19 +63,10 @@ public class CaesarCipher {
      */
 
     public static String encrypt(String plaintext, int key) {
-        StringBuilder result = new StringBuilder();
-        for (char character : plaintext.toCharArray()) {
-            int index = findIndex(character);
-            if (index != -1) {
-                // Aplicar el desplazamiento
-                int encryptedIndex = (index + key) % ALPHABET.length;
-                result.append(ALPHABET[encryptedIndex]);
-            } else {
-                // Manejar caracteres que no están en el alfabeto
-                result.append(character);
-            }
-        }
-        return result.toString();
+        long start = System.nanoTime();
+        String encrypted = translate(plaintext, tableFor(key));
+        Metrics.GLOBAL.recordCipher(true, plaintext.length(), System.nanoTime() - start);
+        return encrypted;
     }
 
 
@@ -74,45 +78,163 @@ public class CaesarCipher {
      * @return the decrypted string
      */
     public static String decrypt(String ciphertext, int key) {
-        StringBuilder result = new StringBuilder();
-        for (char character : ciphertext.toCharArray()) {
-            int index = findIndex(character);
-            if (index != -1) {
-                int decryptindex = (index - key + ALPHABET.length)%ALPHABET.length;
-                result.append(ALPHABET[decryptindex]);
-            } else {
-                result.append(character);
-            }
+        long start = System.nanoTime();
+        String decrypted = translate(ciphertext, tableFor(inverse(key)));
+        Metrics.GLOBAL.recordCipher(false, ciphertext.length(), System.nanoTime() - start);
+        return decrypted;
+    }
+
+    /**
+     * Returns the shift that undoes a key. It is {@code -key}, except for {@code Integer.MIN_VALUE},
+     * whose negation overflows to itself; that key is reduced first, which shifts the same.
+     *
+     * @param key the number of positions used in the encryption; any value is allowed
+     * @return the number of positions to shift to decrypt
+     */
+    static int inverse(int key) {
+        return inverse(key, ALPHABET.length());
+    }
+
+    /**
+     * Returns the shift that undoes a key in an alphabet of the given length.
+     *
+     * @param key the number of positions used in the encryption; any value is allowed
+     * @param length the number of characters of the alphabet
+     * @return the number of positions to shift to decrypt
+     * @see #inverse(int)
+     */
+    static int inverse(int key, int length) {
+        return key == Integer.MIN_VALUE ? -(key % length) : -key;
+    }
+
+    /**
+     * Returns the cached translation table that shifts characters {@code key} positions forward.
+     * Negative keys and keys larger than the alphabet wrap around.
+     *
+     * @param key the number of positions to shift the characters
+     * @return the translation table for that shift
+     * @see TableRegistry
+     */
+    static TranslationTable tableFor(int key) {
+        return TableRegistry.SHARED.get(ALPHABET, key);
+    }
+
+    /**
+     * Returns the cached byte translation table that shifts ASCII characters {@code key} positions forward.
+     *
+     * @param key the number of positions to shift the characters
+     * @return the 256-entry translation table for that shift, or {@code null} if the alphabet is not
+     *         ASCII; it must not be modified
+     */
+    static byte[] byteTableFor(int key) {
+        return TableRegistry.SHARED.get(ALPHABET, key).bytes;
+    }
+
+    /**
+     * Translates the remaining bytes of {@code source} into {@code target} using a table from
+     * {@link #byteTableFor(int)}, with the vector kernel when it is available. Both buffers must have
+     * the same number of remaining bytes; their positions are not changed.
+     *
+     * @param source the ASCII bytes to translate
+     * @param target the buffer receiving the translated bytes
+     * @param table the translation table to apply
+     * @see TranslationKernel
+     */
+    static void translate(ByteBuffer source, ByteBuffer target, byte[] table) {
+        if (source.remaining() >= TranslationKernel.MIN_LENGTH && TranslationKernel.VECTOR != null) {
+            TranslationKernel.VECTOR.translate(source, target, table);
+        } else {
+            translateScalar(source, target, table);
         }
-        return result.toString();
     }
 
     /**
-     * Gets the length of the {@code ALPHABET} array.
+     * Translates the remaining bytes of {@code source} into {@code target} one byte at a time.
+     *
+     * @param source the ASCII bytes to translate
+     * @param target the buffer receiving the translated bytes
+     * @param table the translation table to apply
+     */
+    static void translateScalar(ByteBuffer source, ByteBuffer target, byte[] table) {
+        int offset = target.position() - source.position();
+        for (int i = source.position(), end = source.limit(); i < end; i++) {
+            target.put(i + offset, table[source.get(i) & 0xFF]);
+        }
+    }
+
+    /**
+     * Counts how many times each alphabet character appears in a range of a character buffer.
+     * Characters outside the alphabet are ignored.
+     *
+     * @param buffer the characters to count
+     * @param offset the first position to count
+     * @param length the number of characters to count
+     * @param counts the counters to increment, indexed by alphabet position
+     */
+    static void countSymbols(char[] buffer, int offset, int length, long[] counts) {
+        ALPHABET.countSymbols(buffer, offset, length, counts);
+    }
+
+    /**
+     * Gets the number of characters in the alphabet, the size of the arrays used by {@link #countSymbols}.
+     *
+     * @return the length of the alphabet
+     */
+    static int symbolCount() {
+        return ALPHABET.length();
+    }
+
+    /**
+     * Builds the histogram of alphabet characters of a text in a single pass.
+     *
+     * @param text the text to analyze
+     * @return the number of occurrences of each character, indexed by alphabet position
+     */
+    public static long[] histogram(String text) {
+        return ALPHABET.histogram(text);
+    }
+
+    private static String translate(String text, TranslationTable table) {
+        char[] chars = text.toCharArray();
+        table.translate(chars, 0, chars.length);
+        return new String(chars);
+    }
+
+    /**
+     * Gets the length of the alphabet of this cipher, which is also the number of distinct keys.
      *
      * @return the length of the alphabet
      */
     public int getAlphabetLength() {
-        return ALPHABET.length;  // Cambiado de 26 a ALPHABET.length
+        return alphabet.length();
     }
 
     /**
-     * Gets the {@code ALPHABET} array.
+     * Gets the characters of the alphabet of this cipher.
      *
-     * @return the alphabet array
+     * @return a copy of the alphabet characters
      */
     public char[] getAlphabet() {
-        return ALPHABET;
+        return alphabet.toCharArray();
     }
 
     /**
-     * Sets the shift value for the Caesar cipher.
+     * Gets the alphabet of this cipher.
      *
-     * @param shift the number of positions to shift the characters
+     * @return the alphabet
      */
+    public Alphabet getAlphabetDefinition() {
+        return alphabet;
+    }
 
+    /**
+     * Sets the shift value for the Caesar cipher. The shift was never used by the instance methods.
+     *
+     * @param shift ignored
+     * @deprecated instances no longer hold a key; use {@link ShiftCipher#of(int)} for a cipher bound to a key
+     */
+    @Deprecated
     public void setShift(int shift) {
-        this.shift = shift;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,498 @@
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code CipherServer} class keeps the application running as a local HTTP server, so clients
+ * pay the JVM startup and the loading of the dictionary once instead of on every call. It listens on
+ * the loopback interface only and answers {@code POST} requests whose body is UTF-8 text:
+ *
+ * <pre>
+ * POST /encrypt?key=N                      the body encrypted with the key
+ * POST /decrypt?key=N                      the body decrypted with the key
+ * POST /crack[?method=frequency|dictionary] the body decrypted with the key recovered, given in the
+ *                                          {@code X-Cripto-Clave} response header
+ * </pre>
+ *
+ * <p>Bodies are translated as they arrive and the response is sent in chunks, so their size does not
+ * matter for memory. Cracking by frequency needs to read the text twice: small bodies are kept in
+ * memory and cracked in micro-batches that share the scoring of the keys (see
+ * {@link BruteForce#findKeys(List)}), larger ones are spooled to a temporary file. Cracking with the
+ * dictionary always keeps the body in memory.</p>
+ *
+ * <p>The server accepts at most {@code threads + queueCapacity} requests at once; beyond that it
+ * answers {@code 503} at once with a {@code Retry-After} header, without reading the body. Requests run
+ * on virtual threads when the JVM has them (Java 21 or later), otherwise {@code threads} of them run on
+ * a fixed pool and the rest wait. Bodies larger than {@link #setMaxBodySize(long)} are refused with
+ * {@code 413}, or the connection is cut if the response had already started.</p>
+ */
+
+public class CipherServer {
+
+    /**
+     * Port used when none is given.
+     */
+    public static final int DEFAULT_PORT = 8080;
+
+    /**
+     * Largest body accepted by default, in bytes.
+     */
+    public static final long DEFAULT_MAX_BODY_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * Largest body, in bytes, cracked by frequency in memory and in a batch with other requests.
+     */
+    static final int BATCH_BODY_SIZE = 64 * 1024;
+
+    /**
+     * Most requests cracked together in one batch.
+     */
+    private static final int MAX_BATCH = 64;
+
+    /**
+     * Longest time a request waits for others to join its batch.
+     */
+    private static final long BATCH_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    /**
+     * Response header carrying the key recovered by {@code /crack}.
+     */
+    static final String KEY_HEADER = "X-Cripto-Clave";
+
+    private static final String TEXT = "text/plain; charset=utf-8";
+
+    private final BruteForce bruteForce;
+    private final int threads;
+    private final Semaphore slots;
+    private final BlockingQueue<CrackJob> crackJobs = new LinkedBlockingQueue<>();
+    private final ThreadLocal<Boolean> rejecting = ThreadLocal.withInitial(() -> false);
+    private volatile long maxBodySize = DEFAULT_MAX_BODY_SIZE;
+    private HttpServer server;
+    private ExecutorService workers;
+    private Thread batcher;
+
+    /**
+     * A small text waiting to be cracked by frequency with other requests.
+     */
+    private static final class CrackJob {
+        private final String ciphertext;
+        private final CompletableFuture<Integer> key = new CompletableFuture<>();
+
+        CrackJob(String ciphertext) {
+            this.ciphertext = ciphertext;
+        }
+    }
+
+    /**
+     * Constructs a {@code CipherServer} object. The server does not listen until {@link #start(int)}.
+     *
+     * @param bruteForce the {@code BruteForce} object used to crack, loaded once for all requests
+     * @param threads the number of requests handled at the same time without virtual threads
+     * @param queueCapacity the number of further requests accepted
+     * @throws IllegalArgumentException if the number of threads is less than 1 or the queue capacity negative
+     */
+    public CipherServer(BruteForce bruteForce, int threads, int queueCapacity) {
+        if (threads < 1 || queueCapacity < 0) {
+            throw new IllegalArgumentException("El número de hilos debe ser mayor que cero y la cola no puede ser negativa");
+        }
+        this.bruteForce = bruteForce;
+        this.threads = threads;
+        this.slots = new Semaphore(threads + queueCapacity);
+    }
+
+    /**
+     * Sets the largest request body accepted, {@link #DEFAULT_MAX_BODY_SIZE} by default.
+     *
+     * @param maxBodySize the limit in bytes
+     * @throws IllegalArgumentException if the limit is less than 1
+     */
+    public void setMaxBodySize(long maxBodySize) {
+        if (maxBodySize < 1) {
+            throw new IllegalArgumentException("El tamaño máximo debe ser mayor que cero");
+        }
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * Starts listening on a port of the loopback interface.
+     *
+     * @param port the port, or {@code 0} to pick a free one
+     * @throws IOException if the port cannot be bound
+     * @throws IllegalStateException if the server was already started
+     */
+    public synchronized void start(int port) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("El servidor ya está en marcha");
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        workers = newWorkers(threads);
+        // Cada petición ocupa un hueco hasta que termina; sin hueco se rechaza en el hilo del servidor
+        server.setExecutor(exchange -> {
+            if (slots.tryAcquire()) {
+                try {
+                    workers.execute(() -> {
+                        try {
+                            exchange.run();
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    slots.release();
+                    throw e;
+                }
+            } else {
+                rejecting.set(true);
+                try {
+                    exchange.run();
+                } finally {
+                    rejecting.set(false);
+                }
+            }
+        });
+        server.createContext("/", this::handle);
+        batcher = new Thread(this::crackBatches, "cripto-lotes");
+        batcher.setDaemon(true);
+        batcher.start();
+        server.start();
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return the local port
+     * @throws IllegalStateException if the server is not started
+     */
+    public synchronized int getPort() {
+        if (server == null) {
+            throw new IllegalStateException("El servidor no está en marcha");
+        }
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, gives the running ones a second to finish and releases the threads.
+     * Does nothing if the server is not started.
+     */
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(1);
+        batcher.interrupt();
+        workers.shutdownNow();
+        server = null;
+    }
+
+    /**
+     * Creates the executor of the requests: one virtual thread per request when the JVM supports them,
+     * otherwise a fixed pool. The number of requests in flight is bounded by the slots either way.
+     */
+    private static ExecutorService newWorkers(int threads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // Java anterior a la 21: hilos de plataforma
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+
+    /**
+     * Answers a request. If it fails after the response has started, the exception is passed on so
+     * the server cuts the connection instead of ending the response, which the client would take as
+     * complete.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            route(exchange);
+        } catch (IOException | RuntimeException e) {
+            if (exchange.getResponseCode() != -1) {
+                throw e;
+            }
+            int status = e instanceof BodyTooLargeException ? 413 : e instanceof IllegalArgumentException ? 400 : 500;
+            respond(exchange, status, status == 500 ? "Error interno: " + e.getMessage() : e.getMessage());
+        }
+        exchange.close();
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        if (rejecting.get()) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            respond(exchange, 503, "Servidor ocupado, inténtelo más tarde");
+            return;
+        }
+        if (!exchange.getRequestMethod().equals("POST")) {
+            exchange.getResponseHeaders().set("Allow", "POST");
+            respond(exchange, 405, "Solo se admite POST");
+            return;
+        }
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (length != null && Long.parseLong(length.trim()) > maxBodySize) {
+            respond(exchange, 413, "El cuerpo supera el máximo de " + maxBodySize + " bytes");
+            return;
+        }
+        Map<String, String> parameters = parameters(exchange);
+        switch (exchange.getRequestURI().getPath()) {
+            case "/encrypt":
+                translate(exchange, requireKey(parameters), true);
+                break;
+            case "/decrypt":
+                translate(exchange, requireKey(parameters), false);
+                break;
+            case "/crack":
+                crack(exchange, parameters.getOrDefault("method", "frequency"));
+                break;
+            default:
+                respond(exchange, 404, "Ruta desconocida: " + exchange.getRequestURI().getPath());
+        }
+    }
+
+    /**
+     * Encrypts or decrypts the body as it arrives, sending the result in chunks.
+     */
+    private void translate(HttpExchange exchange, int key, boolean encrypt) throws IOException {
+        TranslationTable table = CaesarCipher.tableFor(encrypt ? key : CaesarCipher.inverse(key));
+        exchange.getResponseHeaders().set("Content-Type", TEXT);
+        exchange.sendResponseHeaders(200, 0);
+        long start = System.nanoTime();
+        // La salida solo se cierra si todo ha ido bien: cerrarla termina la respuesta
+        Writer writer = writer(exchange.getResponseBody());
+        try (Reader reader = reader(body(exchange))) {
+            long chars = FileManager.transform(reader, writer, table);
+            Metrics.GLOBAL.recordCipher(encrypt, chars, System.nanoTime() - start);
+        }
+        writer.close();
+    }
+
+    private void crack(HttpExchange exchange, String method) throws IOException {
+        switch (method) {
+            case "frequency":
+                crackByFrequency(exchange);
+                break;
+            case "dictionary":
+                String ciphertext = new String(body(exchange).readAllBytes(), StandardCharsets.UTF_8);
+                CrackResult result = bruteForce.bruteForceSampled(ciphertext, BruteForce.DEFAULT_CONFIDENCE);
+                exchange.getResponseHeaders().set(KEY_HEADER, Integer.toString(result.getKey()));
+                respond(exchange, 200, result.getPlaintext());
+                break;
+            default:
+                throw new IllegalArgumentException("Método no válido: " + method);
+        }
+    }
+
+    /**
+     * Cracks the body by frequency: in memory and batched with other requests if it is small,
+     * through a temporary file otherwise.
+     */
+    private void crackByFrequency(HttpExchange exchange) throws IOException {
+        InputStream body = body(exchange);
+        byte[] head = body.readNBytes(BATCH_BODY_SIZE + 1);
+        if (head.length <= BATCH_BODY_SIZE) {
+            String ciphertext = new String(head, StandardCharsets.UTF_8);
+            CrackJob job = new CrackJob(ciphertext);
+            crackJobs.add(job);
+            int key = await(job.key);
+            exchange.getResponseHeaders().set(KEY_HEADER, Integer.toString(key));
+            long start = System.nanoTime();
+            char[] chars = ciphertext.toCharArray();
+            TableRegistry.SHARED.get(bruteForce.getAlphabet(), -key).translate(chars, 0, chars.length);
+            Metrics.GLOBAL.recordCipher(false, chars.length, System.nanoTime() - start);
+            respond(exchange, 200, new String(chars));
+            return;
+        }
+        Path spool = Files.createTempFile("cripto-", ".txt");
+        try {
+            try (OutputStream out = Files.newOutputStream(spool)) {
+                out.write(head);
+                body.transferTo(out);
+            }
+            int key = bruteForce.findKey(spool);
+            exchange.getResponseHeaders().set(KEY_HEADER, Integer.toString(key));
+            exchange.getResponseHeaders().set("Content-Type", TEXT);
+            exchange.sendResponseHeaders(200, 0);
+            long start = System.nanoTime();
+            Writer writer = writer(exchange.getResponseBody());
+            try (Reader reader = Channels.newReader(FileChannel.open(spool, StandardOpenOption.READ), FileManager.newDecoder(), -1)) {
+                long chars = FileManager.transform(reader, writer, TableRegistry.SHARED.get(bruteForce.getAlphabet(), -key));
+                Metrics.GLOBAL.recordCipher(false, chars, System.nanoTime() - start);
+            }
+            writer.close();
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    /**
+     * Cracks the queued small texts in batches: the first one waiting is taken with the others that
+     * arrive within {@link #BATCH_WAIT_NANOS}, up to {@link #MAX_BATCH}.
+     */
+    private void crackBatches() {
+        List<CrackJob> batch = new ArrayList<>();
+        List<String> ciphertexts = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(crackJobs.take());
+                long deadline = System.nanoTime() + BATCH_WAIT_NANOS;
+                while (batch.size() < MAX_BATCH) {
+                    CrackJob job = crackJobs.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (job == null) {
+                        break;
+                    }
+                    batch.add(job);
+                }
+                for (CrackJob job : batch) {
+                    ciphertexts.add(job.ciphertext);
+                }
+                try {
+                    int[] keys = bruteForce.findKeys(ciphertexts);
+                    for (int i = 0; i < keys.length; i++) {
+                        batch.get(i).key.complete(keys[i]);
+                    }
+                } catch (RuntimeException e) {
+                    for (CrackJob job : batch) {
+                        job.key.completeExceptionally(e);
+                    }
+                }
+                batch.clear();
+                ciphertexts.clear();
+            }
+        } catch (InterruptedException e) {
+            // El servidor se ha detenido
+            for (CrackJob job : batch) {
+                job.key.cancel(false);
+            }
+        }
+    }
+
+    private static int await(CompletableFuture<Integer> key) throws IOException {
+        try {
+            return key.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Petición interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IOException("No se pudo descifrar", e.getCause());
+        }
+    }
+
+    /**
+     * Gets the request body, failing with {@link BodyTooLargeException} once it exceeds the limit.
+     */
+    private InputStream body(HttpExchange exchange) {
+        long limit = maxBodySize;
+        return new FilterInputStream(exchange.getRequestBody()) {
+            private long remaining = limit;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    count(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    count(read);
+                }
+                return read;
+            }
+
+            private void count(int read) throws BodyTooLargeException {
+                remaining -= read;
+                if (remaining < 0) {
+                    throw new BodyTooLargeException("El cuerpo supera el máximo de " + limit + " bytes");
+                }
+            }
+        };
+    }
+
+    private static Reader reader(InputStream in) {
+        return Channels.newReader(Channels.newChannel(in), FileManager.newDecoder(), -1);
+    }
+
+    private static Writer writer(OutputStream out) {
+        return Channels.newWriter(Channels.newChannel(out), FileManager.newEncoder(), -1);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", TEXT);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static Map<String, String> parameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals == -1 ? pair : pair.substring(0, equals);
+            String value = equals == -1 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static int requireKey(Map<String, String> parameters) {
+        String value = parameters.get("key");
+        if (value == null) {
+            throw new IllegalArgumentException("Falta el parámetro key");
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Clave inválida: " + value);
+        }
+    }
+
+    /**
+     * Signals a request body larger than the limit of the server.
+     */
+    private static final class BodyTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        BodyTooLargeException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,446 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code CommandLine} class runs a single operation given by command-line flags, without asking
+ * the user anything, so the application can be used from scripts and Unix pipelines. The input
+ * and the output may be {@code -} to use the standard input and output; messages and the
+ * recovered keys are printed to the standard error so they never mix with the data.
+ *
+ * <pre>
+ * encrypt|decrypt --in FILE|- --out FILE|- [--key N] [--threads N] [--mode auto|stream|mmap|parallel] [--incremental]
+ * crack           --in FILE|- --out FILE|- [--method frequency|dictionary|segments] [--lang es|en] [--dict FILE] [--confidence X] [--window N]
+ * batch           --in DIR --out DIR [--op encrypt|decrypt|crack] [--key N] [--glob PATTERN] [--threads N] [--io-threads N]
+ * serve           [--port N] [--threads N] [--queue N] [--max-body BYTES] [--lang es|en] [--dict FILE]
+ * </pre>
+ *
+ * {@code crack --method segments} finds a key for each part of a text encrypted with several keys and
+ * prints the part/key map; see {@link SegmentAnalyzer}.
+ *
+ * Every file operation is added to the {@link RunLog}; {@code decrypt} without {@code --key} uses the
+ * key recorded for its input.
+ *
+ * Output files are created when missing and replaced when present, unless {@code --no-create}
+ * or {@code --no-overwrite} are given. With {@code --incremental} only the bytes added to the input
+ * since the previous run are translated and appended; see {@link IncrementalCipher}.
+ *
+ * Files ending in {@code .gz}, {@code .zz}, {@code .deflate} or {@code .zip} are decompressed when read
+ * and compressed when written; see {@link CompressionPipeline}.
+ */
+
+public class CommandLine {
+
+    /** The operation completed correctly. */
+    public static final int EXIT_OK = 0;
+    /** An I/O error or an invalid file stopped the operation. */
+    public static final int EXIT_ERROR = 1;
+    /** The command or its flags are not valid. */
+    public static final int EXIT_USAGE = 2;
+    /** A batch run finished but some of its files failed. */
+    public static final int EXIT_PARTIAL = 3;
+
+    private static final String STANDARD_STREAM = "-";
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Uso:",
+            "  encrypt|decrypt --in ARCHIVO|- --out ARCHIVO|- [--key N] [--threads N] [--mode auto|stream|mmap|parallel] [--incremental]",
+            "  crack --in ARCHIVO|- --out ARCHIVO|- [--method frequency|dictionary|segments] [--lang es|en] [--dict ARCHIVO] [--confidence X] [--window N]",
+            "  batch --in DIRECTORIO --out DIRECTORIO [--op encrypt|decrypt|crack] [--key N] [--glob PATRÓN] [--threads N] [--io-threads N]",
+            "  serve [--port N] [--threads N] [--queue N] [--max-body BYTES] [--lang es|en] [--dict ARCHIVO]",
+            "Opciones comunes: --no-create (no crear archivos de salida), --no-overwrite (no sobrescribir archivos existentes)");
+
+    private final PrintStream err;
+    private final Map<String, String> options = new HashMap<>();
+
+    private CommandLine(PrintStream err) {
+        this.err = err;
+    }
+
+    /**
+     * Runs the operation described by the arguments.
+     *
+     * @param args the command followed by its flags
+     * @return the exit code: {@link #EXIT_OK}, {@link #EXIT_ERROR}, {@link #EXIT_USAGE} or {@link #EXIT_PARTIAL}
+     */
+    public static int run(String[] args) {
+        return new CommandLine(System.err).execute(args);
+    }
+
+    private int execute(String[] args) {
+        if (args.length == 0) {
+            err.println(USAGE);
+            return EXIT_USAGE;
+        }
+        try {
+            String command = args[0];
+            parseOptions(args);
+            switch (command) {
+                case "encrypt":
+                    return translate(RunLog.Operation.ENCRYPT);
+                case "decrypt":
+                    return translate(RunLog.Operation.DECRYPT);
+                case "crack":
+                    return crack();
+                case "batch":
+                    return batch();
+                case "serve":
+                    return serve();
+                case "help":
+                case "--help":
+                    err.println(USAGE);
+                    return EXIT_OK;
+                default:
+                    throw new UsageException("Comando desconocido: " + command);
+            }
+        } catch (UsageException e) {
+            err.println("Error: " + e.getMessage());
+            err.println(USAGE);
+            return EXIT_USAGE;
+        } catch (IOException | UncheckedIOException e) {
+            err.println("Error de E/S: " + e.getMessage());
+            return EXIT_ERROR;
+        } catch (IllegalArgumentException e) {
+            err.println("Error: " + e.getMessage());
+            return EXIT_ERROR;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            err.println("Proceso interrumpido.");
+            return EXIT_ERROR;
+        }
+    }
+
+    private void parseOptions(String[] args) {
+        for (int i = 1; i < args.length; i++) {
+            String name = args[i];
+            if (!name.startsWith("--")) {
+                throw new UsageException("Argumento inesperado: " + name);
+            }
+            if (name.equals("--no-create") || name.equals("--no-overwrite") || name.equals("--incremental")) {
+                options.put(name, "true");
+            } else if (i + 1 < args.length) {
+                options.put(name, args[++i]);
+            } else {
+                throw new UsageException("Falta el valor de " + name);
+            }
+        }
+    }
+
+    private int translate(RunLog.Operation operation) throws IOException {
+        String input = require("--in");
+        String output = require("--out");
+        int key = operation == RunLog.Operation.DECRYPT && !options.containsKey("--key") && !input.equals(STANDARD_STREAM)
+                ? recordedKey(input) : requireKey();
+        int shift = operation == RunLog.Operation.ENCRYPT ? key : CaesarCipher.inverse(key);
+        int threads = intOption("--threads", 1);
+        FileManager.Mode mode = FileManager.Mode.AUTO;
+        switch (options.getOrDefault("--mode", "auto")) {
+            case "auto":
+                break;
+            case "stream":
+                mode = FileManager.Mode.STREAM;
+                break;
+            case "mmap":
+                mode = FileManager.Mode.MMAP;
+                break;
+            case "parallel":
+                mode = FileManager.Mode.MMAP;
+                if (!options.containsKey("--threads")) {
+                    threads = Runtime.getRuntime().availableProcessors();
+                }
+                break;
+            default:
+                throw new UsageException("Modo no válido: " + options.get("--mode"));
+        }
+        boolean incremental = options.containsKey("--incremental");
+        if (incremental && (input.equals(STANDARD_STREAM) || output.equals(STANDARD_STREAM))) {
+            throw new UsageException("--incremental solo se puede usar con archivos");
+        }
+        if (input.equals(STANDARD_STREAM) || output.equals(STANDARD_STREAM)) {
+            // Las tuberías no se pueden mapear en memoria: siempre por bloques
+            try (Reader reader = openReader(input); Writer writer = openWriter(output)) {
+                long start = System.nanoTime();
+                long chars = FileManager.transform(reader, writer, CaesarCipher.tableFor(shift));
+                Metrics.GLOBAL.recordCipher(operation == RunLog.Operation.ENCRYPT, chars, System.nanoTime() - start);
+            }
+            return EXIT_OK;
+        }
+        FileManager fileManager = newFileManager();
+        fileManager.setMode(mode);
+        fileManager.setIncremental(incremental);
+        long start = System.nanoTime();
+        try (ParallelCipher cipher = threads > 1 ? new ParallelCipher(threads) : ParallelCipher.SEQUENTIAL) {
+            if (operation == RunLog.Operation.ENCRYPT) {
+                fileManager.encryptFile(input, output, key, cipher);
+            } else {
+                fileManager.decryptFile(input, output, key, cipher);
+            }
+        }
+        record(operation, input, output, key, start);
+        return EXIT_OK;
+    }
+
+    private int crack() throws IOException {
+        String input = require("--in");
+        String output = require("--out");
+        BruteForce bruteForce = newBruteForce();
+        String method = options.getOrDefault("--method", "frequency");
+        int key;
+        if (method.equals("frequency")) {
+            if (!input.equals(STANDARD_STREAM) && !output.equals(STANDARD_STREAM)) {
+                // Los archivos se analizan y descifran por bloques, sin cargarlos en memoria
+                FileManager fileManager = newFileManager();
+                long start = System.nanoTime();
+                key = bruteForce.findKey(Paths.get(input));
+                err.println("Clave: " + key);
+                fileManager.decryptFile(input, output, key);
+                record(RunLog.Operation.CRACK, input, output, key, start);
+                return EXIT_OK;
+            }
+            String ciphertext = readAll(input);
+            key = bruteForce.findKey(ciphertext);
+            err.println("Clave: " + key);
+            writeAll(output, CaesarCipher.decrypt(ciphertext, key));
+        } else if (method.equals("dictionary")) {
+            double confidence = doubleOption("--confidence", BruteForce.DEFAULT_CONFIDENCE);
+            CrackResult result = bruteForce.bruteForceSampled(readAll(input), confidence);
+            err.println(result);
+            writeAll(output, result.getPlaintext());
+        } else if (method.equals("segments")) {
+            SegmentAnalyzer analyzer = new SegmentAnalyzer(bruteForce, intOption("--window", SegmentAnalyzer.DEFAULT_WINDOW));
+            List<SegmentAnalyzer.Segment> segments;
+            try (Reader reader = openReader(input); Writer writer = openWriter(output)) {
+                segments = analyzer.crack(reader, writer);
+            }
+            for (SegmentAnalyzer.Segment segment : segments) {
+                err.println(segment);
+            }
+        } else {
+            throw new UsageException("Método no válido: " + method);
+        }
+        return EXIT_OK;
+    }
+
+    private int batch() throws IOException, InterruptedException {
+        Path input = Paths.get(require("--in"));
+        Path output = Paths.get(require("--out"));
+        BatchProcessor.Operation operation;
+        switch (options.getOrDefault("--op", "encrypt")) {
+            case "encrypt":
+                operation = BatchProcessor.Operation.ENCRYPT;
+                break;
+            case "decrypt":
+                operation = BatchProcessor.Operation.DECRYPT;
+                break;
+            case "crack":
+                operation = BatchProcessor.Operation.CRACK;
+                break;
+            default:
+                throw new UsageException("Operación no válida: " + options.get("--op"));
+        }
+        int key = operation == BatchProcessor.Operation.CRACK ? 0 : requireKey();
+        int processors = Runtime.getRuntime().availableProcessors();
+        int threads = intOption("--threads", processors);
+        int ioThreads = intOption("--io-threads", processors * 4);
+        Metrics.publish();
+        BruteForce bruteForce = operation == BatchProcessor.Operation.CRACK ? newBruteForce() : null;
+        BatchReport report;
+        try (BatchProcessor batchProcessor = new BatchProcessor(bruteForce, ioThreads, threads, ioThreads * 4);
+             RunLog runLog = RunLog.openDefault()) {
+            batchProcessor.setRunLog(runLog);
+            report = batchProcessor.process(input, options.getOrDefault("--glob", "*"), output, operation, key);
+        }
+        report.print(err);
+        if (bruteForce != null) {
+            err.println(bruteForce.getKeyCache());
+        }
+        return report.getFailureCount() == 0 ? EXIT_OK : EXIT_PARTIAL;
+    }
+
+    private int serve() throws IOException, InterruptedException {
+        int threads = intOption("--threads", Runtime.getRuntime().availableProcessors() * 2);
+        CipherServer server = new CipherServer(newBruteForce(), threads, intOption("--queue", threads * 4));
+        server.setMaxBodySize(intOption("--max-body", (int) CipherServer.DEFAULT_MAX_BODY_SIZE));
+        server.start(options.containsKey("--port") ? portOption() : CipherServer.DEFAULT_PORT);
+        Metrics.publish();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "cripto-parada"));
+        err.println("Servidor escuchando en http://127.0.0.1:" + server.getPort() + "/ (encrypt, decrypt, crack)");
+        // Hasta que se detenga el proceso
+        Thread.currentThread().join();
+        return EXIT_OK;
+    }
+
+    private int portOption() {
+        String value = options.get("--port");
+        try {
+            int port = Integer.parseInt(value.trim());
+            if (port < 0 || port > 65535) {
+                throw new UsageException("--port debe estar entre 0 y 65535");
+            }
+            return port;
+        } catch (NumberFormatException e) {
+            throw new UsageException("Número no válido para --port: " + value);
+        }
+    }
+
+    private FileManager newFileManager() {
+        // Nunca se pregunta nada: sin Scanner, cuya carga compila varias expresiones regulares
+        FileManager fileManager = new FileManager(new Validator(), null);
+        fileManager.setMissingFilePolicy(options.containsKey("--no-create")
+                ? FileManager.MissingFilePolicy.FAIL : FileManager.MissingFilePolicy.CREATE);
+        fileManager.setOverwrite(!options.containsKey("--no-overwrite"));
+        fileManager.setMessages(err);
+        return fileManager;
+    }
+
+    private BruteForce newBruteForce() throws IOException {
+        Language language = Language.fromCode(options.getOrDefault("--lang", System.getProperty("cripto.idioma", "es")));
+        String dictionaryPath = options.getOrDefault("--dict", System.getProperty("cripto.diccionario"));
+        BruteForce bruteForce = dictionaryPath != null
+                ? new BruteForce(new CaesarCipher(), language, WordTable.load(Paths.get(dictionaryPath)))
+                : new BruteForce(new CaesarCipher(), language);
+        bruteForce.setKeyCache(KeyCache.openDefault());
+        return bruteForce;
+    }
+
+    private Reader openReader(String input) throws IOException {
+        if (input.equals(STANDARD_STREAM)) {
+            return Channels.newReader(Channels.newChannel(System.in), FileManager.newDecoder(), -1);
+        }
+        Path path = Paths.get(input);
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("El archivo de entrada no existe.");
+        }
+        if (CompressionPipeline.isCompressed(path)) {
+            return CompressionPipeline.openReader(path);
+        }
+        return Channels.newReader(FileChannel.open(path, StandardOpenOption.READ), FileManager.newDecoder(), -1);
+    }
+
+    private Writer openWriter(String output) throws IOException {
+        if (output.equals(STANDARD_STREAM)) {
+            return Channels.newWriter(Channels.newChannel(System.out), FileManager.newEncoder(), -1);
+        }
+        Path path = Paths.get(output);
+        if (Files.exists(path) && options.containsKey("--no-overwrite")) {
+            throw new IllegalArgumentException("El archivo ya existe y no se puede sobrescribir: " + output);
+        }
+        if (!Files.exists(path) && options.containsKey("--no-create")) {
+            throw new IllegalArgumentException("El archivo no existe: " + output);
+        }
+        if (CompressionPipeline.isCompressed(path)) {
+            return CompressionPipeline.openWriter(path);
+        }
+        return Channels.newWriter(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING), FileManager.newEncoder(), -1);
+    }
+
+    private String readAll(String input) throws IOException {
+        StringWriter text = new StringWriter();
+        try (Reader reader = openReader(input)) {
+            reader.transferTo(text);
+        }
+        return text.toString();
+    }
+
+    private void writeAll(String output, String text) throws IOException {
+        try (Writer writer = openWriter(output)) {
+            writer.write(text);
+        }
+    }
+
+    private String require(String name) {
+        String value = options.get(name);
+        if (value == null) {
+            throw new UsageException("Falta la opción " + name);
+        }
+        return value;
+    }
+
+    /**
+     * Finds in the run log the key that encrypted a file, for {@code decrypt} without {@code --key}.
+     */
+    private int recordedKey(String input) throws IOException {
+        try (RunLog runLog = RunLog.openDefault()) {
+            RunLog.Record record = runLog.findKey(Paths.get(input));
+            if (record == null) {
+                throw new UsageException("Falta la opción --key y el registro no tiene la clave de " + input);
+            }
+            if (Files.exists(Paths.get(input)) && Files.size(Paths.get(input)) != record.getOutputBytes()) {
+                err.println("Aviso: el archivo ha cambiado desde que se cifró");
+            }
+            err.println("Clave registrada: " + record.getKey());
+            return record.getKey();
+        }
+    }
+
+    /**
+     * Adds a finished file operation to the run log. A failure to record it is reported but does
+     * not fail the operation, whose output is already written.
+     */
+    private void record(RunLog.Operation operation, String input, String output, int key, long start) {
+        Path outputPath = Paths.get(output);
+        if (!Files.exists(outputPath)) {
+            return;
+        }
+        try (RunLog runLog = RunLog.openDefault()) {
+            runLog.append(RunLog.Record.of(operation, Paths.get(input), outputPath, key, System.nanoTime() - start));
+        } catch (IOException e) {
+            err.println("No se pudo actualizar el registro de ejecuciones: " + e.getMessage());
+        }
+    }
+
+    private int requireKey() {
+        String value = require("--key");
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new UsageException("Clave inválida: " + value);
+        }
+    }
+
+    private int intOption(String name, int defaultValue) {
+        String value = options.get(name);
+        try {
+            int number = value == null ? defaultValue : Integer.parseInt(value.trim());
+            if (number < 1) {
+                throw new UsageException(name + " debe ser mayor que cero");
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new UsageException("Número no válido para " + name + ": " + value);
+        }
+    }
+
+    private double doubleOption(String name, double defaultValue) {
+        String value = options.get(name);
+        try {
+            return value == null ? defaultValue : Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new UsageException("Número no válido para " + name + ": " + value);
+        }
+    }
+
+    /**
+     * Thrown when the command or its flags are not valid.
+     */
+    private static final class UsageException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        UsageException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,506 @@
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * The {@code CompressionPipeline} class reads and writes compressed files as if they were plain text,
+ * so archives can be encrypted, decrypted and cracked without unpacking them to disk first. The
+ * {@link Format} is chosen by the file extension.
+ *
+ * <p>A file is translated by three stages running at the same time on their own threads: one
+ * decompresses the input, one decodes, translates and encodes the text, and one compresses the
+ * result. The stages hand blocks of {@link #BLOCK_SIZE} bytes to each other through bounded queues,
+ * and the blocks go back to the stage that filled them once used, so memory use does not depend on
+ * the size of the file and a slow stage holds the others back instead of piling up blocks. Compressing
+ * is usually the slowest stage; translating then costs almost no extra time.</p>
+ */
+
+public class CompressionPipeline {
+
+    /**
+     * Number of decompressed bytes in each block passed between the stages.
+     */
+    static final int BLOCK_SIZE = 256 * 1024;
+
+    /**
+     * Number of blocks between two stages; a stage waits when all of them are full.
+     */
+    static final int DEPTH = 4;
+
+    /**
+     * Number of decompressed characters analyzed to find the key of a compressed file.
+     */
+    public static final long SAMPLE_CHARS = 1 << 20;
+
+    /**
+     * Size of the buffer of the compressed streams.
+     */
+    private static final int STREAM_BUFFER = 64 * 1024;
+
+    /**
+     * Marks the end of the data in a queue.
+     */
+    private static final Block END = new Block(0);
+
+    private static final AtomicInteger PIPELINES = new AtomicInteger();
+
+    /**
+     * A compression format, recognized by the extension of the file name.
+     */
+    public enum Format {
+        /** Not compressed. */
+        NONE,
+        /** Gzip, for {@code .gz} files. */
+        GZIP,
+        /** Deflate with the zlib header, for {@code .zz} and {@code .deflate} files. */
+        DEFLATE,
+        /** Zip archive with a single file, for {@code .zip} files. */
+        ZIP;
+
+        /**
+         * Gets the format of a file from its name.
+         *
+         * @param path the file
+         * @return the format given by its extension, or {@link #NONE}
+         */
+        public static Format of(Path path) {
+            Path fileName = path.getFileName();
+            String name = fileName == null ? "" : fileName.toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".gz")) {
+                return GZIP;
+            }
+            if (name.endsWith(".zz") || name.endsWith(".deflate")) {
+                return DEFLATE;
+            }
+            if (name.endsWith(".zip")) {
+                return ZIP;
+            }
+            return NONE;
+        }
+    }
+
+    private CompressionPipeline() {
+    }
+
+    /**
+     * Checks whether a file is compressed, judging by its name.
+     *
+     * @param path the file
+     * @return {@code true} if its format is not {@link Format#NONE}
+     */
+    public static boolean isCompressed(Path path) {
+        return Format.of(path) != Format.NONE;
+    }
+
+    /**
+     * Opens a file for reading its decompressed content. Only the first file of a zip archive is
+     * read; reading fails at its end if the archive holds more.
+     *
+     * @param path the file, compressed or not
+     * @return a stream with the decompressed bytes
+     * @throws IOException if the file cannot be opened or its header is not valid
+     */
+    public static InputStream openInput(Path path) throws IOException {
+        InputStream in = Files.newInputStream(path);
+        try {
+            switch (Format.of(path)) {
+                case GZIP:
+                    return new GZIPInputStream(in, STREAM_BUFFER);
+                case DEFLATE:
+                    return new InflaterInputStream(in, new Inflater(), STREAM_BUFFER);
+                case ZIP:
+                    return openZipEntry(new ZipInputStream(in));
+                default:
+                    return in;
+            }
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates or replaces a file, compressing what is written to it. A zip archive gets a single file
+     * named like the archive without its {@code .zip} extension.
+     *
+     * @param path the file, compressed or not
+     * @return a stream that compresses the bytes written; closing it completes the file
+     * @throws IOException if the file cannot be created
+     */
+    public static OutputStream openOutput(Path path) throws IOException {
+        OutputStream out = Files.newOutputStream(path);
+        try {
+            switch (Format.of(path)) {
+                case GZIP:
+                    return new GZIPOutputStream(out, STREAM_BUFFER);
+                case DEFLATE:
+                    return new DeflaterOutputStream(out, new Deflater(), STREAM_BUFFER);
+                case ZIP:
+                    ZipOutputStream zip = new ZipOutputStream(out);
+                    String name = path.getFileName().toString();
+                    zip.putNextEntry(new ZipEntry(name.substring(0, name.length() - ".zip".length())));
+                    return zip;
+                default:
+                    return out;
+            }
+        } catch (IOException | RuntimeException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a file for reading its decompressed content as UTF-8 text.
+     *
+     * @param path the file, compressed or not
+     * @return a reader of the decompressed text
+     * @throws IOException if the file cannot be opened
+     * @see #openInput(Path)
+     */
+    public static Reader openReader(Path path) throws IOException {
+        return new InputStreamReader(openInput(path), FileManager.newDecoder());
+    }
+
+    /**
+     * Creates or replaces a file, writing UTF-8 text to it compressed.
+     *
+     * @param path the file, compressed or not
+     * @return a writer that compresses the text; closing it completes the file
+     * @throws IOException if the file cannot be created
+     * @see #openOutput(Path)
+     */
+    public static Writer openWriter(Path path) throws IOException {
+        return new OutputStreamWriter(openOutput(path), FileManager.newEncoder());
+    }
+
+    /**
+     * Translates a file into another one, either or both compressed, decompressing, translating and
+     * compressing on three threads at once. If a stage fails the others are stopped.
+     *
+     * @param input the file to read
+     * @param output the file to create or overwrite
+     * @param table the translation table from {@link CaesarCipher#tableFor(int)}
+     * @return the number of decompressed bytes read
+     * @throws IOException if an I/O error occurs while reading or writing, or the input is not valid
+     */
+    static long transform(Path input, Path output, TranslationTable table) throws IOException {
+        Channel decompressed = new Channel();
+        Channel translated = new Channel();
+        int id = PIPELINES.incrementAndGet();
+        AtomicInteger stage = new AtomicInteger();
+        String[] names = {"descompresion", "cifrado", "compresion"};
+        ExecutorService executor = Executors.newFixedThreadPool(names.length, task -> {
+            Thread thread = new Thread(task, "cripto-" + names[stage.getAndIncrement()] + "-" + id);
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<Long> stages = new ExecutorCompletionService<>(executor);
+        List<Future<Long>> futures = new ArrayList<>();
+        // Los hilos toman su nombre en el orden de envío de las etapas
+        futures.add(stages.submit(() -> decompress(input, decompressed)));
+        futures.add(stages.submit(() -> translate(decompressed, translated, table)));
+        futures.add(stages.submit(() -> compress(translated, output)));
+        long bytes = 0;
+        try {
+            for (int done = 0; done < futures.size(); done++) {
+                Future<Long> future = stages.take();
+                if (future == futures.get(0)) {
+                    bytes = future.get();
+                } else {
+                    future.get();
+                }
+            }
+        } catch (ExecutionException e) {
+            // Una etapa ha fallado: las demás quedarían esperando bloques que nunca llegan
+            for (Future<Long> future : futures) {
+                future.cancel(true);
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        } catch (InterruptedException e) {
+            for (Future<Long> future : futures) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Compresión interrumpida");
+        } finally {
+            executor.shutdown();
+        }
+        return bytes;
+    }
+
+    /**
+     * Builds the histogram of alphabet characters of the start of a file, decompressing only what
+     * is needed.
+     *
+     * @param path the file, compressed or not
+     * @param limit the maximum number of characters to analyze
+     * @return the number of occurrences of each character, indexed by alphabet position
+     * @throws IOException if an I/O error occurs while reading the file
+     */
+    static long[] countSymbols(Path path, long limit) throws IOException {
+        long[] counts = new long[CaesarCipher.symbolCount()];
+        try (Reader reader = openReader(path)) {
+            char[] buffer = new char[FileManager.CHUNK_SIZE];
+            long remaining = limit;
+            int read;
+            while (remaining > 0 && (read = reader.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                CaesarCipher.countSymbols(buffer, 0, read, counts);
+                remaining -= read;
+            }
+        }
+        return counts;
+    }
+
+    private static long decompress(Path input, Channel channel) throws IOException, InterruptedException {
+        long total = 0;
+        try (InputStream in = openInput(input)) {
+            while (true) {
+                Block block = channel.free.take();
+                block.length = in.readNBytes(block.data, 0, block.data.length);
+                if (block.length == 0) {
+                    channel.free.put(block);
+                    break;
+                }
+                total += block.length;
+                channel.full.put(block);
+            }
+        }
+        channel.full.put(END);
+        return total;
+    }
+
+    private static long translate(Channel input, Channel output, TranslationTable table) throws IOException {
+        // Las fases de lectura y escritura miden lo que esta etapa espera a las otras dos
+        try (Reader reader = new InputStreamReader(new BlockInputStream(input), FileManager.newDecoder());
+             Writer writer = new OutputStreamWriter(new BlockOutputStream(output), FileManager.newEncoder())) {
+            return FileManager.transform(reader, writer, table);
+        }
+    }
+
+    private static long compress(Channel channel, Path output) throws IOException, InterruptedException {
+        long total = 0;
+        try (OutputStream out = openOutput(output)) {
+            Block block;
+            while ((block = channel.full.take()) != END) {
+                out.write(block.data, 0, block.length);
+                total += block.length;
+                channel.free.put(block);
+            }
+        }
+        return total;
+    }
+
+    private static InputStream openZipEntry(ZipInputStream zip) throws IOException {
+        ZipEntry entry = zip.getNextEntry();
+        while (entry != null && entry.isDirectory()) {
+            entry = zip.getNextEntry();
+        }
+        if (entry == null) {
+            throw new IOException("El archivo zip no contiene ningún archivo");
+        }
+        return new FilterInputStream(zip) {
+            private boolean checked;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b == -1) {
+                    checkLast();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read == -1) {
+                    checkLast();
+                }
+                return read;
+            }
+
+            private void checkLast() throws IOException {
+                if (checked) {
+                    return;
+                }
+                checked = true;
+                ZipEntry next = zip.getNextEntry();
+                while (next != null && next.isDirectory()) {
+                    next = zip.getNextEntry();
+                }
+                if (next != null) {
+                    throw new IOException("El archivo zip contiene más de un archivo: " + next.getName());
+                }
+            }
+        };
+    }
+
+    /**
+     * A buffer of bytes passed between two stages.
+     */
+    private static final class Block {
+        final byte[] data;
+        int length;
+
+        Block(int size) {
+            this.data = new byte[size];
+        }
+    }
+
+    /**
+     * Connects two stages: the producer takes empty blocks from {@code free} and puts them in
+     * {@code full}, and the consumer gives them back once used. Only {@link #DEPTH} blocks exist, so
+     * {@code full} always has room for the final {@link #END} mark.
+     */
+    private static final class Channel {
+        final BlockingQueue<Block> full = new ArrayBlockingQueue<>(DEPTH + 1);
+        final BlockingQueue<Block> free = new ArrayBlockingQueue<>(DEPTH);
+
+        Channel() {
+            for (int i = 0; i < DEPTH; i++) {
+                free.add(new Block(BLOCK_SIZE));
+            }
+        }
+    }
+
+    /**
+     * Reads the blocks put in the {@code full} queue of a channel, giving each one back when read.
+     */
+    private static final class BlockInputStream extends InputStream {
+        private final Channel channel;
+        private Block current;
+        private int position;
+
+        BlockInputStream(Channel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            try {
+                while (current == null || position == current.length) {
+                    if (current == END) {
+                        return -1;
+                    }
+                    if (current != null) {
+                        channel.free.put(current);
+                    }
+                    current = channel.full.take();
+                    position = 0;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Compresión interrumpida");
+            }
+            int count = Math.min(length, current.length - position);
+            System.arraycopy(current.data, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+    }
+
+    /**
+     * Fills blocks from the {@code free} queue of a channel and puts them in its {@code full} queue.
+     * Closing it sends the last block and the {@link #END} mark.
+     */
+    private static final class BlockOutputStream extends OutputStream {
+        private final Channel channel;
+        private Block current;
+        private boolean closed;
+
+        BlockOutputStream(Channel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            try {
+                while (length > 0) {
+                    if (current == null) {
+                        current = channel.free.take();
+                        current.length = 0;
+                    }
+                    int count = Math.min(length, current.data.length - current.length);
+                    System.arraycopy(buffer, offset, current.data, current.length, count);
+                    current.length += count;
+                    offset += count;
+                    length -= count;
+                    if (current.length == current.data.length) {
+                        channel.full.put(current);
+                        current = null;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Compresión interrumpida");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            // Hay sitio para el último bloque y la marca: no se espera nunca
+            if (current != null && current.length > 0) {
+                channel.full.add(current);
+            }
+            current = null;
+            channel.full.add(END);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * The {@code CrackResult} class holds the outcome of a brute force attack: the chosen key,
+ * how it compared with the next best key and the decrypted text.
+ */
+
+public class CrackResult {
+
+    private final int key;
+    private final int score;
+    private final int runnerUpKey;
+    private final int runnerUpScore;
+    private final long charactersExamined;
+    private final String plaintext;
+    private final boolean cached;
+
+    /**
+     * Constructs a {@code CrackResult} object.
+     *
+     * @param key the chosen key
+     * @param score the score of the text decrypted with the chosen key
+     * @param runnerUpKey the second best key, or {@code -1} if there was none
+     * @param runnerUpScore the score of the second best key
+     * @param charactersExamined the number of ciphertext characters scored before choosing
+     * @param plaintext the full text decrypted with the chosen key
+     */
+    public CrackResult(int key, int score, int runnerUpKey, int runnerUpScore, long charactersExamined, String plaintext) {
+        this.key = key;
+        this.score = score;
+        this.runnerUpKey = runnerUpKey;
+        this.runnerUpScore = runnerUpScore;
+        this.charactersExamined = charactersExamined;
+        this.plaintext = plaintext;
+        this.cached = false;
+    }
+
+    /**
+     * Constructs the result of a crack answered by a {@link KeyCache}, without scoring any key.
+     *
+     * @param key the cached key
+     * @param plaintext the full text decrypted with the cached key
+     */
+    CrackResult(int key, String plaintext) {
+        this.key = key;
+        this.score = 0;
+        this.runnerUpKey = -1;
+        this.runnerUpScore = 0;
+        this.charactersExamined = 0;
+        this.plaintext = plaintext;
+        this.cached = true;
+    }
+
+    /**
+     * Gets the chosen key.
+     *
+     * @return the key used to decrypt the text
+     */
+    public int getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the score of the chosen key.
+     *
+     * @return the score of the examined text decrypted with the chosen key
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Gets the second best key.
+     *
+     * @return the second best key, or {@code -1} if there was none
+     */
+    public int getRunnerUpKey() {
+        return runnerUpKey;
+    }
+
+    /**
+     * Gets the score of the second best key.
+     *
+     * @return the score of the examined text decrypted with the second best key
+     */
+    public int getRunnerUpScore() {
+        return runnerUpScore;
+    }
+
+    /**
+     * Gets how much of the ciphertext was scored before choosing the key.
+     *
+     * @return the number of characters examined
+     */
+    public long getCharactersExamined() {
+        return charactersExamined;
+    }
+
+    /**
+     * Gets the decrypted text.
+     *
+     * @return the full text decrypted with the chosen key
+     */
+    public String getPlaintext() {
+        return plaintext;
+    }
+
+    /**
+     * Checks whether the key came from a {@link KeyCache} instead of being scored.
+     *
+     * @return {@code true} if no key was scored
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    @Override
+    public String toString() {
+        if (cached) {
+            return "Clave: " + key + " (recuperada de la caché de claves)";
+        }
+        return "Clave: " + key + " (puntuación " + score + "), segunda mejor: " + runnerUpKey
+                + " (puntuación " + runnerUpScore + "), caracteres examinados: " + charactersExamined;
+    }
+}
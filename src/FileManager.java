@@ -1,9 +1,23 @@
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.Scanner;
+import jdk.jfr.FlightRecorder;
 
 /**
  * The {@code FileManager} class provides methods to read from and write to files,
@@ -11,8 +25,47 @@ import java.util.Scanner;
  */
 
 public class FileManager {
+    /**
+     * Number of characters read, translated and written at a time by the streaming methods.
+     */
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Largest region of a file mapped at once by the memory-mapped path.
+     */
+    static final long MAP_WINDOW = 256L * 1024 * 1024;
+
+    /**
+     * What to do when a file that has to be written, or read by {@link #readFile(String)}, does not exist.
+     */
+    public enum MissingFilePolicy {
+        /** Ask the user whether to create it. */
+        ASK,
+        /** Create it without asking. */
+        CREATE,
+        /** Fail with an {@code IllegalArgumentException}. */
+        FAIL
+    }
+
+    /**
+     * How {@link #encryptFile} and {@link #decryptFile} read and write the files.
+     */
+    public enum Mode {
+        /** Memory-mapped for ASCII files, chunked otherwise. */
+        AUTO,
+        /** Always through a chunked reader and writer. */
+        STREAM,
+        /** Always memory-mapped; non-ASCII files are decoded per range. */
+        MMAP
+    }
+
     private Validator validator;
     private Scanner scanner;
+    private MissingFilePolicy missingFilePolicy = MissingFilePolicy.ASK;
+    private boolean overwrite = true;
+    private Mode mode = Mode.AUTO;
+    private boolean incremental;
+    private PrintStream messages = System.out;
 
     /**
      * Constructs a {@code FileManager} object with the specified {@code Validator}.
@@ -29,16 +82,66 @@ public class FileManager {
      * Constructs a {@code FileManager} object with the specified {@code Validator} and {@code Scanner}.
      *
      * @param validator the {@code Validator} object used to validate file paths
-     * @param scanner the {@code Scanner} object used for user input
+     * @param scanner the {@code Scanner} object used for user input; may be {@code null} if the
+     *                missing file policy will not be {@link MissingFilePolicy#ASK}
      */
     public FileManager(Validator validator, Scanner scanner) {
         this.validator = validator;
         this.scanner = scanner;
     }
 
+    /**
+     * Sets what to do when a file does not exist. The default is to ask the user.
+     *
+     * @param missingFilePolicy the policy for missing files
+     */
+    public void setMissingFilePolicy(MissingFilePolicy missingFilePolicy) {
+        this.missingFilePolicy = missingFilePolicy;
+    }
+
+    /**
+     * Sets whether existing output files may be replaced. They are replaced by default.
+     *
+     * @param overwrite {@code false} to fail instead of replacing an existing file
+     */
+    public void setOverwrite(boolean overwrite) {
+        this.overwrite = overwrite;
+    }
+
+    /**
+     * Sets how files are read and written by {@link #encryptFile} and {@link #decryptFile}.
+     *
+     * @param mode the I/O mode; {@link Mode#AUTO} by default
+     */
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Sets whether {@link #encryptFile} and {@link #decryptFile} only translate the bytes added to the
+     * input since the previous run, as recorded by {@link IncrementalCipher} in a manifest next to the
+     * output. The output is rebuilt when the input was truncated or replaced. Disabled by default.
+     *
+     * @param incremental {@code true} to append to the output instead of rewriting it
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * Sets where progress messages are printed, for example {@code System.err} when the
+     * standard output carries data. They go to {@code System.out} by default.
+     *
+     * @param messages the stream for progress messages
+     */
+    public void setMessages(PrintStream messages) {
+        this.messages = messages;
+    }
+
     /**
      * Writes content to a file at the specified file path. If the file does not exist,
-     * prompts the user for permission to create it.
+     * prompts the user for permission to create it. The content is compressed if the file name has
+     * the extension of a {@link CompressionPipeline.Format}.
      *
      * @param filePath the path of the file to write to
      * @param content the content to be written to the file
@@ -46,30 +149,444 @@ public class FileManager {
      * @throws IllegalArgumentException if the file path is not valid
      */
     public void writeFile(String filePath, String content) throws IOException {
-        if (validator.isFileValid(filePath)) {
-            if (!validator.isFileExists(filePath)) {
-                System.out.println("El archivo no existe. ¿Desea crearlo? (s/n)");
-                String response = scanner.nextLine().trim().toLowerCase();
-                if (response.equals("s")) {
-                    Files.write(Paths.get(filePath), content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-                    System.out.println("Archivo creado y escrito correctamente.");
-                } else {
-                    System.out.println("El archivo no existe y no se ha creado.");
-                    return;
-                }
-            } else {
-                // Si el archivo ya existe, sobrescríbelo
-                Files.write(Paths.get(filePath), content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.TRUNCATE_EXISTING);
-                System.out.println("Archivo sobrescrito correctamente.");
+        boolean exists = validator.isFileExists(filePath);
+        if (!confirmWritable(filePath)) {
+            return;
+        }
+        long start = System.nanoTime();
+        Path path = Paths.get(filePath);
+        if (CompressionPipeline.isCompressed(path)) {
+            try (OutputStream out = CompressionPipeline.openOutput(path)) {
+                out.write(content.getBytes(StandardCharsets.UTF_8));
             }
+            messages.println(exists ? "Archivo sobrescrito correctamente." : "Archivo creado y escrito correctamente.");
+        } else if (!exists) {
+            Files.write(path, content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            messages.println("Archivo creado y escrito correctamente.");
         } else {
+            // Si el archivo ya existe, sobrescríbelo
+            Files.write(path, content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.TRUNCATE_EXISTING);
+            messages.println("Archivo sobrescrito correctamente.");
+        }
+        Metrics.GLOBAL.recordPhase(Metrics.Phase.WRITE, System.nanoTime() - start);
+    }
+
+    /**
+     * Encrypts a file into another one without loading it in memory. Pure ASCII files are memory-mapped
+     * and translated byte by byte without decoding them, unless the configured alphabet has non-ASCII
+     * characters; any other file is read, shifted and written
+     * in chunks of {@link #CHUNK_SIZE} characters. In both cases heap use does not depend on the file
+     * size. If the output file does not exist, prompts the user for permission to create it.
+     * Compressed files are decompressed, translated and compressed again on separate threads;
+     * see {@link CompressionPipeline}.
+     *
+     * @param inputPath the path of the file to encrypt
+     * @param outputPath the path of the file to write the encrypted text to
+     * @param key the number of positions to shift the characters
+     * @throws IOException if an I/O error occurs while reading or writing
+     * @throws IllegalArgumentException if a path is not valid, the input does not exist or both paths are the same file
+     */
+    public void encryptFile(String inputPath, String outputPath, int key) throws IOException {
+        transformFile(inputPath, outputPath, key, true, ParallelCipher.SEQUENTIAL);
+    }
+
+    /**
+     * Encrypts a file into another one without loading it in memory, splitting the translation
+     * of each mapped region between the threads of {@code cipher}.
+     *
+     * @param inputPath the path of the file to encrypt
+     * @param outputPath the path of the file to write the encrypted text to
+     * @param key the number of positions to shift the characters
+     * @param cipher the parallel cipher that sets the number of threads and the size threshold
+     * @throws IOException if an I/O error occurs while reading or writing
+     * @throws IllegalArgumentException if a path is not valid, the input does not exist or both paths are the same file
+     * @see #encryptFile(String, String, int)
+     */
+    public void encryptFile(String inputPath, String outputPath, int key, ParallelCipher cipher) throws IOException {
+        transformFile(inputPath, outputPath, key, true, cipher);
+    }
+
+    /**
+     * Decrypts a file into another one without loading it in memory.
+     *
+     * @param inputPath the path of the encrypted file
+     * @param outputPath the path of the file to write the decrypted text to
+     * @param key the number of positions used in the original encryption
+     * @throws IOException if an I/O error occurs while reading or writing
+     * @throws IllegalArgumentException if a path is not valid, the input does not exist or both paths are the same file
+     * @see #encryptFile(String, String, int)
+     */
+    public void decryptFile(String inputPath, String outputPath, int key) throws IOException {
+        transformFile(inputPath, outputPath, CaesarCipher.inverse(key), false, ParallelCipher.SEQUENTIAL);
+    }
+
+    /**
+     * Decrypts a file into another one without loading it in memory, splitting the translation
+     * of each mapped region between the threads of {@code cipher}.
+     *
+     * @param inputPath the path of the encrypted file
+     * @param outputPath the path of the file to write the decrypted text to
+     * @param key the number of positions used in the original encryption
+     * @param cipher the parallel cipher that sets the number of threads and the size threshold
+     * @throws IOException if an I/O error occurs while reading or writing
+     * @throws IllegalArgumentException if a path is not valid, the input does not exist or both paths are the same file
+     * @see #encryptFile(String, String, int)
+     */
+    public void decryptFile(String inputPath, String outputPath, int key, ParallelCipher cipher) throws IOException {
+        transformFile(inputPath, outputPath, CaesarCipher.inverse(key), false, cipher);
+    }
+
+    private void transformFile(String inputPath, String outputPath, int shift, boolean encrypt, ParallelCipher cipher) throws IOException {
+        if (!validator.isFileValid(inputPath)) {
             throw new IllegalArgumentException("El nombre del archivo no es válido");
         }
+        if (!validator.isFileExists(inputPath)) {
+            throw new IllegalArgumentException("El archivo de entrada no existe.");
+        }
+        Path input = Paths.get(inputPath);
+        Path output = Paths.get(outputPath);
+        if (validator.isFileExists(outputPath) && Files.isSameFile(input, output)) {
+            throw new IllegalArgumentException("El archivo de entrada y el de salida no pueden ser el mismo.");
+        }
+        if (incremental && Files.exists(IncrementalCipher.manifestFor(output))) {
+            // La salida ya la gestiona el modo incremental: se amplía, no se sobrescribe
+            messages.println(new IncrementalCipher(cipher).update(input, output, shift, encrypt));
+            return;
+        }
+        if (!confirmWritable(outputPath)) {
+            return;
+        }
+        if (incremental) {
+            messages.println(new IncrementalCipher(cipher).update(input, output, shift, encrypt));
+            return;
+        }
+        transform(input, output, shift, encrypt, cipher, mode);
+        messages.println("Archivo procesado correctamente.");
+    }
+
+    /**
+     * Shifts every alphabet character of a file into another one, choosing the fastest path for the
+     * input: a memory-mapped byte translation for ASCII files when the alphabet is ASCII too, parallel
+     * ranges for other files when
+     * {@code cipher} has several threads, and a chunked reader and writer otherwise. Does not validate
+     * the paths nor ask anything to the user.
+     *
+     * @param input the file to read
+     * @param output the file to create or overwrite
+     * @param shift the number of positions to shift forward
+     * @param encrypt whether the operation is recorded as an encryption or as a decryption; the
+     *        sign of {@code shift} does not tell, since keys may be negative or wrap around
+     * @param cipher the cipher that sets the number of threads
+     * @throws IOException if an I/O error occurs while reading or writing
+     */
+    static void transform(Path input, Path output, int shift, boolean encrypt, ParallelCipher cipher) throws IOException {
+        transform(input, output, shift, encrypt, cipher, Mode.AUTO);
+    }
+
+    /**
+     * Shifts every alphabet character of a file into another one using the given I/O mode.
+     * With {@link Mode#AUTO} this is {@link #transform(Path, Path, int, boolean, ParallelCipher)}. When either
+     * file is compressed the mode is ignored and the file goes through a {@link CompressionPipeline}.
+     *
+     * @param input the file to read
+     * @param output the file to create or overwrite
+     * @param shift the number of positions to shift forward
+     * @param encrypt whether the operation is recorded as an encryption or as a decryption
+     * @param cipher the cipher that sets the number of threads
+     * @param mode how the files are read and written
+     * @throws IOException if an I/O error occurs while reading or writing
+     */
+    static void transform(Path input, Path output, int shift, boolean encrypt, ParallelCipher cipher, Mode mode) throws IOException {
+        // Cargar la clase del evento arranca la infraestructura de JFR: solo si hay una grabación
+        FileOperationEvent event = FlightRecorder.isInitialized() ? FileOperationEvent.start(encrypt, input, output) : null;
+        long allocated = Metrics.threadAllocatedBytes();
+        long start = System.nanoTime();
+        TranslationTable table = CaesarCipher.tableFor(shift);
+        String path;
+        long bytes = -1;
+        if (CompressionPipeline.isCompressed(input) || CompressionPipeline.isCompressed(output)) {
+            // Un archivo comprimido no se puede proyectar en memoria: siempre por etapas
+            path = "compressed";
+            bytes = CompressionPipeline.transform(input, output, table);
+        } else if (mode == Mode.STREAM) {
+            path = "stream";
+            streamFile(input, output, table);
+        } else if (table.bytes != null && isAscii(input)) {
+            path = "mmap-ascii";
+            mapFile(input, output, table.bytes, cipher);
+        } else if (mode == Mode.MMAP || cipher.getParallelism() > 1) {
+            path = "mmap-utf8";
+            mapUtf8File(input, output, table, cipher);
+        } else {
+            path = "stream";
+            streamFile(input, output, table);
+        }
+        if (bytes < 0) {
+            bytes = Files.size(input);
+        }
+        Metrics.GLOBAL.recordCipher(encrypt, bytes, System.nanoTime() - start);
+        Metrics.GLOBAL.recordFile(bytes, allocated < 0 ? -1 : Metrics.threadAllocatedBytes() - allocated);
+        if (event != null) {
+            event.end(path, bytes);
+        }
+    }
+
+    /**
+     * Builds the histogram of alphabet characters of a file in a single pass, reading it in chunks
+     * of {@link #CHUNK_SIZE} characters.
+     *
+     * @param filePath the path of the file to analyze
+     * @return the number of occurrences of each character, indexed by alphabet position
+     * @throws IOException if an I/O error occurs while reading the file
+     * @throws IllegalArgumentException if the path is not valid or the file does not exist
+     */
+    public long[] countSymbols(String filePath) throws IOException {
+        if (!validator.isFileValid(filePath)) {
+            throw new IllegalArgumentException("El nombre del archivo no es válido");
+        }
+        if (!validator.isFileExists(filePath)) {
+            throw new IllegalArgumentException("El archivo de entrada no existe.");
+        }
+        return countSymbols(Paths.get(filePath));
+    }
+
+    /**
+     * Builds the histogram of alphabet characters of a file without validating its path. Compressed
+     * files are decompressed as they are read.
+     *
+     * @param path the file to analyze
+     * @return the number of occurrences of each character, indexed by alphabet position
+     * @throws IOException if an I/O error occurs while reading the file
+     * @see #countSymbols(String)
+     */
+    static long[] countSymbols(Path path) throws IOException {
+        if (CompressionPipeline.isCompressed(path)) {
+            return CompressionPipeline.countSymbols(path, Long.MAX_VALUE);
+        }
+        long[] counts = new long[CaesarCipher.symbolCount()];
+        try (Reader reader = Channels.newReader(FileChannel.open(path, StandardOpenOption.READ), newDecoder(), -1)) {
+            char[] buffer = new char[CHUNK_SIZE];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                CaesarCipher.countSymbols(buffer, 0, read, counts);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Translates a file through a UTF-8 reader and writer, one chunk at a time.
+     *
+     * @param input the file to read
+     * @param output the file to create or overwrite
+     * @param table the translation table from {@link CaesarCipher#tableFor(int)}
+     * @throws IOException if an I/O error occurs while reading or writing
+     */
+    static void streamFile(Path input, Path output, TranslationTable table) throws IOException {
+        try (Reader reader = Channels.newReader(FileChannel.open(input, StandardOpenOption.READ), newDecoder(), -1);
+             Writer writer = Channels.newWriter(FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), newEncoder(), -1)) {
+            transform(reader, writer, table);
+        }
+    }
+
+    /**
+     * Translates an ASCII file by mapping the input and the output in memory and applying the byte
+     * table directly between both mappings. The text is never decoded nor copied to the heap.
+     *
+     * @param input the file to read; it must contain only ASCII bytes
+     * @param output the file to create or overwrite
+     * @param table the translation table from {@link CaesarCipher#byteTableFor(int)}
+     * @param cipher the cipher that translates each mapped region, possibly on several threads
+     * @throws IOException if an I/O error occurs while reading or writing
+     */
+    static void mapFile(Path input, Path output, byte[] table, ParallelCipher cipher) throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long start = System.nanoTime();
+            for (long position = 0; position < size; position += MAP_WINDOW) {
+                long length = Math.min(MAP_WINDOW, size - position);
+                MappedByteBuffer source = in.map(FileChannel.MapMode.READ_ONLY, position, length);
+                MappedByteBuffer target = out.map(FileChannel.MapMode.READ_WRITE, position, length);
+                cipher.translate(source, target, table);
+            }
+            // Lectura, traducción y escritura ocurren a la vez entre ambas proyecciones
+            Metrics.GLOBAL.recordPhase(Metrics.Phase.TRANSFORM, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Translates a UTF-8 file on several threads. The input is mapped in regions that end at a
+     * character boundary; each region is decoded and translated in parallel ranges, and the ranges
+     * are written to the output in order.
+     *
+     * @param input the file to read
+     * @param output the file to create or overwrite
+     * @param table the translation table from {@link CaesarCipher#tableFor(int)}
+     * @param cipher the cipher that splits each region between its threads
+     * @throws IOException if an I/O error occurs while reading or writing
+     */
+    static void mapUtf8File(Path input, Path output, TranslationTable table, ParallelCipher cipher) throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            translateUtf8(in, 0, in.size(), out, table, cipher);
+        }
+    }
+
+    /**
+     * Translates a byte range of a UTF-8 file and writes the result at the current position of
+     * {@code out}, mapping the input in regions that end at a character boundary.
+     *
+     * @param in the file to read
+     * @param start the first byte to translate; it must start a UTF-8 sequence
+     * @param end the position after the last byte to translate
+     * @param out the channel receiving the translated bytes
+     * @param table the translation table from {@link CaesarCipher#tableFor(int)}
+     * @param cipher the cipher that splits each region between its threads
+     * @return the number of bytes written
+     * @throws IOException if an I/O error occurs while reading or writing
+     */
+    static long translateUtf8(FileChannel in, long start, long end, FileChannel out, TranslationTable table, ParallelCipher cipher) throws IOException {
+        long written = 0;
+        long position = start;
+        while (position < end) {
+            long length = Math.min(MAP_WINDOW, end - position);
+            MappedByteBuffer region = in.map(FileChannel.MapMode.READ_ONLY, position, length);
+            if (position + length < end) {
+                // El siguiente carácter puede continuar en la próxima región
+                region.limit(ParallelCipher.alignUtf8(region, (int) length - 1));
+            }
+            written += cipher.translateUtf8(region, table, out);
+            position += region.limit();
+        }
+        return written;
+    }
+
+    /**
+     * Checks whether a file contains only ASCII bytes, reading it through a memory mapping
+     * eight bytes at a time.
+     *
+     * @param path the file to check
+     * @return {@code true} if every byte of the file is below 128
+     * @throws IOException if an I/O error occurs while reading the file
+     */
+    static boolean isAscii(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAP_WINDOW) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, size - position));
+                int i = 0;
+                int limit = buffer.limit();
+                for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+                    if ((buffer.getLong(i) & 0x8080808080808080L) != 0) {
+                        return false;
+                    }
+                }
+                for (; i < limit; i++) {
+                    if (buffer.get(i) < 0) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Copies all characters from a reader to a writer, translating them with a table
+     * from {@link CaesarCipher#tableFor(int)} one chunk at a time.
+     *
+     * @param reader the source of the characters
+     * @param writer the destination of the translated characters
+     * @param table the translation table to apply
+     * @return the number of characters processed
+     * @throws IOException if an I/O error occurs while reading or writing
+     */
+    static long transform(Reader reader, Writer writer, TranslationTable table) throws IOException {
+        char[] buffer = new char[CHUNK_SIZE];
+        long total = 0;
+        long readNanos = 0;
+        long transformNanos = 0;
+        long writeNanos = 0;
+        long start = System.nanoTime();
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            long afterRead = System.nanoTime();
+            table.translate(buffer, 0, read);
+            long afterTransform = System.nanoTime();
+            writer.write(buffer, 0, read);
+            long afterWrite = System.nanoTime();
+            readNanos += afterRead - start;
+            transformNanos += afterTransform - afterRead;
+            writeNanos += afterWrite - afterTransform;
+            start = afterWrite;
+            total += read;
+        }
+        readNanos += System.nanoTime() - start;
+        Metrics.GLOBAL.recordPhase(Metrics.Phase.READ, readNanos);
+        Metrics.GLOBAL.recordPhase(Metrics.Phase.TRANSFORM, transformNanos);
+        Metrics.GLOBAL.recordPhase(Metrics.Phase.WRITE, writeNanos);
+        return total;
+    }
+
+    /**
+     * Creates a UTF-8 decoder that replaces malformed input, like {@code new String(bytes, UTF_8)} does.
+     * The decoder keeps incomplete sequences between reads, so multi-byte characters split across
+     * chunks are decoded correctly.
+     */
+    static CharsetDecoder newDecoder() {
+        return StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Creates a UTF-8 encoder that replaces unpaired surrogates, like {@code String.getBytes(UTF_8)} does.
+     */
+    static CharsetEncoder newEncoder() {
+        return StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Checks that a file can be written, applying the missing file policy and the overwrite setting.
+     *
+     * @param filePath the path of the file to write to
+     * @return {@code true} if the file may be written, {@code false} if the user declined to create it
+     * @throws IllegalArgumentException if the file path is not valid, the file is missing and the policy is
+     *         {@link MissingFilePolicy#FAIL}, or the file exists and may not be overwritten
+     */
+    private boolean confirmWritable(String filePath) {
+        if (!validator.isFileValid(filePath)) {
+            throw new IllegalArgumentException("El nombre del archivo no es válido");
+        }
+        if (validator.isFileExists(filePath)) {
+            if (!overwrite) {
+                throw new IllegalArgumentException("El archivo ya existe y no se puede sobrescribir: " + filePath);
+            }
+            return true;
+        }
+        switch (missingFilePolicy) {
+            case CREATE:
+                return true;
+            case FAIL:
+                throw new IllegalArgumentException("El archivo no existe: " + filePath);
+            default:
+                messages.println("El archivo no existe. ¿Desea crearlo? (s/n)");
+                String response = scanner.nextLine().trim().toLowerCase();
+                if (!response.equals("s")) {
+                    messages.println("El archivo no existe y no se ha creado.");
+                    return false;
+                }
+                return true;
+        }
     }
 
     /**
      * Reads the content of a file at the specified file path. If the file does not exist,
-     * prompts the user for permission to create it.
+     * prompts the user for permission to create it. Files compressed with a format known by
+     * {@link CompressionPipeline} are decompressed as they are read.
      *
      * @param filePath the path of the file to read
      * @return the content of the file as a string
@@ -84,20 +601,42 @@ public class FileManager {
         }
         // Validar si el archivo existe, y si no, preguntar al usuario si desea crearlo
         if (!validator.isFileExists(filePath)) {
-            System.out.println("El archivo no existe. ¿Desea crearlo? (s/n)");
-            String response = scanner.nextLine().trim().toLowerCase();
+            if (missingFilePolicy == MissingFilePolicy.FAIL) {
+                throw new IllegalArgumentException("El archivo no existe: " + filePath);
+            }
+            String response = "s";
+            if (missingFilePolicy == MissingFilePolicy.ASK) {
+                messages.println("El archivo no existe. ¿Desea crearlo? (s/n)");
+                response = scanner.nextLine().trim().toLowerCase();
+            }
             if (response.equals("s")) {
-                Files.write(Paths.get(filePath), "".getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE);
-                System.out.println("Archivo creado, pero está vacío.");
+                Path created = Paths.get(filePath);
+                if (CompressionPipeline.isCompressed(created)) {
+                    // Un archivo comprimido vacío aún necesita su cabecera
+                    CompressionPipeline.openOutput(created).close();
+                } else {
+                    Files.write(created, "".getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE);
+                }
+                messages.println("Archivo creado, pero está vacío.");
                 return ""; // Retornar vacío para que la clase Main lo maneje si es necesario
             } else {
                 throw new IllegalArgumentException("El archivo no existe y no se ha creado.");
             }
         }
         // Leer el contenido del archivo
-        byte[] fileBytes = Files.readAllBytes(Paths.get(filePath));
+        long start = System.nanoTime();
+        Path path = Paths.get(filePath);
+        byte[] fileBytes;
+        if (CompressionPipeline.isCompressed(path)) {
+            try (InputStream in = CompressionPipeline.openInput(path)) {
+                fileBytes = in.readAllBytes();
+            }
+        } else {
+            fileBytes = Files.readAllBytes(path);
+        }
+        Metrics.GLOBAL.recordPhase(Metrics.Phase.READ, System.nanoTime() - start);
         if (fileBytes.length == 0) {
-            System.out.println("El archivo está vacío. Por favor, agregue contenido antes de continuar.");
+            messages.println("El archivo está vacío. Por favor, agregue contenido antes de continuar.");
             return "";
         }
         return new String(fileBytes, StandardCharsets.UTF_8);
@@ -0,0 +1,70 @@
+import java.nio.file.Path;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The {@code FileOperationEvent} class is the Flight Recorder event emitted for every file encrypted
+ * or decrypted while Flight Recorder runs; record it with {@code -XX:StartFlightRecording} and look
+ * for {@code cripto.FileOperation}. Loading this class starts the Flight Recorder machinery, which
+ * takes longer than encrypting a small file, so callers only create events once
+ * {@code FlightRecorder.isInitialized()}.
+ */
+
+@Name("cripto.FileOperation")
+@Label("File Operation")
+@Category("Cripto")
+@Description("Encryption or decryption of one file")
+class FileOperationEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Input")
+    String input;
+
+    @Label("Output")
+    String output;
+
+    @Label("Mode")
+    String mode;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    /**
+     * Starts timing the translation of a file.
+     *
+     * @param encrypt {@code true} to encrypt, {@code false} to decrypt
+     * @param input the file read
+     * @param output the file written
+     * @return the started event
+     */
+    static FileOperationEvent start(boolean encrypt, Path input, Path output) {
+        FileOperationEvent event = new FileOperationEvent();
+        event.operation = encrypt ? "encrypt" : "decrypt";
+        event.input = input.toString();
+        event.output = output.toString();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it if the recording asks for it.
+     *
+     * @param mode how the file was read and written
+     * @param bytes the size of the input
+     */
+    void end(String mode, long bytes) {
+        if (shouldCommit()) {
+            this.mode = mode;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,333 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * The {@code IncrementalCipher} class keeps the translation of a file that only grows, such as a log,
+ * up to date without processing it again. Next to the output it writes a manifest recording how many
+ * input bytes have been translated, the size, modification time and identity of the input, and a
+ * checksum of the last bytes translated. On later runs only the bytes added since then are translated
+ * and appended to the output.
+ *
+ * <p>The whole output is rebuilt instead when the manifest is missing or belongs to another key,
+ * alphabet or input, when the input has shrunk or its translated tail has changed (it was truncated,
+ * rotated or rewritten), or when the output no longer has the size the manifest recorded. Input ending
+ * in the middle of a UTF-8 character is translated whole, as in the other modes, so the unfinished
+ * character becomes U+FFFD; the manifest also records where the last complete character ends, and if
+ * the input grows the output is cut back there and that character is translated again with its
+ * remaining bytes.</p>
+ */
+
+public class IncrementalCipher {
+
+    /**
+     * Suffix added to the output path to name its manifest.
+     */
+    public static final String MANIFEST_SUFFIX = ".manifest";
+
+    /**
+     * Number of bytes before the translated offset covered by the tail checksum.
+     */
+    static final int TAIL_SIZE = 4096;
+
+    /**
+     * Number of bytes translated at a time by the byte path.
+     */
+    private static final int CHUNK_SIZE = 1024 * 1024;
+
+    private static final String VERSION = "1";
+
+    /**
+     * What a run did with the output.
+     */
+    public enum Outcome {
+        /** Nothing was added to the input since the last run. */
+        UNCHANGED,
+        /** The new input bytes were translated and appended. */
+        APPENDED,
+        /** The output was translated again from the start. */
+        REBUILT
+    }
+
+    /**
+     * The outcome of one run, the number of input bytes translated and, for a rebuild, its cause.
+     */
+    public static final class Result {
+        private final Outcome outcome;
+        private final long bytes;
+        private final String reason;
+
+        Result(Outcome outcome, long bytes, String reason) {
+            this.outcome = outcome;
+            this.bytes = bytes;
+            this.reason = reason;
+        }
+
+        /**
+         * Gets what the run did.
+         *
+         * @return the outcome
+         */
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        /**
+         * Gets the number of input bytes translated by the run.
+         *
+         * @return the translated bytes; 0 if the output was already up to date
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Gets why the output was rebuilt.
+         *
+         * @return the cause of the rebuild, or {@code null} if it was not rebuilt
+         */
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            switch (outcome) {
+                case UNCHANGED:
+                    return "Sin cambios desde la última ejecución.";
+                case APPENDED:
+                    return "Añadidos " + bytes + " bytes nuevos.";
+                default:
+                    return "Reconstruido (" + reason + "): " + bytes + " bytes.";
+            }
+        }
+    }
+
+    private final ParallelCipher cipher;
+
+    /**
+     * Constructs an {@code IncrementalCipher} object.
+     *
+     * @param cipher the cipher that sets the number of threads used to translate large ranges
+     */
+    public IncrementalCipher(ParallelCipher cipher) {
+        this.cipher = cipher;
+    }
+
+    /**
+     * Gets the path of the manifest that tracks an output file.
+     *
+     * @param output the translated file
+     * @return the path of its manifest
+     */
+    public static Path manifestFor(Path output) {
+        return output.resolveSibling(output.getFileName() + MANIFEST_SUFFIX);
+    }
+
+    /**
+     * Brings {@code output} up to date with {@code input}: appends the translation of the bytes added
+     * since the last run, or translates the whole input again if it cannot be trusted, and then
+     * updates the manifest. The output is flushed to disk before the manifest is replaced, so an
+     * interrupted run is detected and rebuilt by the next one.
+     *
+     * @param input the growing file to read
+     * @param output the file holding its translation
+     * @param shift the number of positions to shift forward
+     * @param encrypt whether the update is recorded as an encryption or as a decryption
+     * @return what was done
+     * @throws IOException if an I/O error occurs while reading or writing
+     * @throws IllegalArgumentException if either file is compressed
+     */
+    public Result update(Path input, Path output, int shift, boolean encrypt) throws IOException {
+        if (CompressionPipeline.isCompressed(input) || CompressionPipeline.isCompressed(output)) {
+            // Un flujo comprimido no se puede ampliar desde la posición de la última ejecución
+            throw new IllegalArgumentException("El modo incremental no admite archivos comprimidos");
+        }
+        TranslationTable table = CaesarCipher.tableFor(shift);
+        Path manifestPath = manifestFor(output);
+        Properties manifest = readManifest(manifestPath);
+        BasicFileAttributes attributes = Files.readAttributes(input, BasicFileAttributes.class);
+        long size = attributes.size();
+        String modified = attributes.lastModifiedTime().toString();
+        String fileKey = String.valueOf(attributes.fileKey());
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+            String reason = manifest == null ? "sin manifiesto" : checkManifest(manifest, input, output, table, in, fileKey);
+            long offset = reason == null ? Long.parseLong(manifest.getProperty("offset")) : 0;
+            if (reason == null && offset == size && Long.toString(size).equals(manifest.getProperty("size"))
+                    && modified.equals(manifest.getProperty("modified"))) {
+                return new Result(Outcome.UNCHANGED, 0, null);
+            }
+            // Un carácter incompleto al final de la última ejecución se traduce de nuevo con sus bytes nuevos
+            long start = reason == null ? Long.parseLong(manifest.getProperty("complete", Long.toString(offset))) : 0;
+            long kept = reason == null ? Long.parseLong(manifest.getProperty("completeOutputSize", manifest.getProperty("outputSize"))) : 0;
+            long end = completeEnd(in, start, size);
+            long completeOutputSize;
+            long written;
+            try (FileChannel out = reason == null
+                    ? FileChannel.open(output, StandardOpenOption.WRITE)
+                    : FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                out.truncate(kept).position(kept);
+                long began = System.nanoTime();
+                translate(in, start, end, out, table);
+                completeOutputSize = out.position();
+                // El carácter incompleto se decodifica siempre, como en los demás modos, y queda como U+FFFD
+                FileManager.translateUtf8(in, end, size, out, table, cipher);
+                Metrics.GLOBAL.recordCipher(encrypt, size - start, System.nanoTime() - began);
+                out.force(false);
+                written = out.size();
+            }
+            Properties updated = new Properties();
+            updated.setProperty("version", VERSION);
+            updated.setProperty("input", input.toAbsolutePath().normalize().toString());
+            updated.setProperty("alphabet", Integer.toString(table.alphabet.hashCode()));
+            updated.setProperty("alphabetLength", Integer.toString(table.alphabet.length()));
+            updated.setProperty("shift", Integer.toString(table.shift));
+            updated.setProperty("offset", Long.toString(size));
+            updated.setProperty("complete", Long.toString(end));
+            updated.setProperty("completeOutputSize", Long.toString(completeOutputSize));
+            updated.setProperty("size", Long.toString(size));
+            updated.setProperty("modified", modified);
+            updated.setProperty("fileKey", fileKey);
+            updated.setProperty("tailCrc", Long.toString(tailChecksum(in, size)));
+            updated.setProperty("outputSize", Long.toString(written));
+            writeManifest(manifestPath, updated);
+            if (reason != null) {
+                return new Result(Outcome.REBUILT, size, reason);
+            }
+            return new Result(size == offset ? Outcome.UNCHANGED : Outcome.APPENDED, size - offset, null);
+        }
+    }
+
+    /**
+     * Checks that the manifest still describes the input and the output.
+     *
+     * @return why the output has to be rebuilt, or {@code null} if new bytes can be appended
+     */
+    private static String checkManifest(Properties manifest, Path input, Path output, TranslationTable table,
+                                        FileChannel in, String fileKey) throws IOException {
+        try {
+            if (!VERSION.equals(manifest.getProperty("version"))
+                    || !input.toAbsolutePath().normalize().toString().equals(manifest.getProperty("input"))) {
+                return "el manifiesto corresponde a otro archivo";
+            }
+            if (Integer.parseInt(manifest.getProperty("alphabet")) != table.alphabet.hashCode()
+                    || Integer.parseInt(manifest.getProperty("alphabetLength")) != table.alphabet.length()
+                    || Integer.parseInt(manifest.getProperty("shift")) != table.shift) {
+                return "la clave o el alfabeto han cambiado";
+            }
+            if (!fileKey.equals(manifest.getProperty("fileKey"))) {
+                return "el archivo de entrada ha sido sustituido";
+            }
+            long offset = Long.parseLong(manifest.getProperty("offset"));
+            if (in.size() < offset) {
+                return "el archivo de entrada ha sido truncado";
+            }
+            if (tailChecksum(in, offset) != Long.parseLong(manifest.getProperty("tailCrc"))) {
+                return "el contenido ya cifrado ha cambiado";
+            }
+            if (!Files.exists(output) || Files.size(output) != Long.parseLong(manifest.getProperty("outputSize"))) {
+                return "el archivo de salida no coincide con el manifiesto";
+            }
+            return null;
+        } catch (NumberFormatException | NullPointerException e) {
+            // Un manifiesto incompleto o corrupto obliga a empezar de nuevo
+            return "manifiesto dañado";
+        }
+    }
+
+    /**
+     * Translates the bytes of {@code in} from {@code start} to {@code end} and writes them at the
+     * position of {@code out}. ASCII alphabets translate byte by byte; other alphabets decode the text.
+     */
+    private void translate(FileChannel in, long start, long end, FileChannel out, TranslationTable table) throws IOException {
+        if (table.bytes == null) {
+            FileManager.translateUtf8(in, start, end, out, table, cipher);
+            return;
+        }
+        ByteBuffer target = ByteBuffer.allocateDirect((int) Math.min(CHUNK_SIZE, Math.max(1, end - start)));
+        for (long position = start; position < end; position += target.capacity()) {
+            int length = (int) Math.min(target.capacity(), end - position);
+            MappedByteBuffer source = in.map(FileChannel.MapMode.READ_ONLY, position, length);
+            target.clear().limit(length);
+            cipher.translate(source, target, table.bytes);
+            while (target.hasRemaining()) {
+                out.write(target);
+            }
+        }
+    }
+
+    /**
+     * Finds the end of the last complete UTF-8 character at or before {@code size}, where the next
+     * run starts again if a character was still being written.
+     */
+    static long completeEnd(FileChannel in, long start, long size) throws IOException {
+        int length = (int) Math.min(4, size - start);
+        if (length <= 0) {
+            return Math.max(start, size);
+        }
+        ByteBuffer last = read(in, size - length, length);
+        for (int i = length - 1; i >= 0; i--) {
+            int b = last.get(i) & 0xFF;
+            if ((b & 0xC0) == 0x80) {
+                continue;
+            }
+            int expected = b < 0x80 ? 1 : b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+            // Secuencia incompleta: termina antes de su primer byte
+            return i + expected > length ? size - length + i : size;
+        }
+        return size;
+    }
+
+    /**
+     * Computes the CRC-32 of the {@link #TAIL_SIZE} bytes, or fewer, that end at {@code offset}.
+     */
+    static long tailChecksum(FileChannel in, long offset) throws IOException {
+        int length = (int) Math.min(TAIL_SIZE, offset);
+        CRC32 crc = new CRC32();
+        crc.update(read(in, offset - length, length));
+        return crc.getValue();
+    }
+
+    private static ByteBuffer read(FileChannel in, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining() && in.read(buffer, position + buffer.position()) != -1) {
+            // La lectura posicional puede devolver menos bytes de los pedidos
+        }
+        return buffer.flip();
+    }
+
+    private static Properties readManifest(Path path) throws IOException {
+        Properties manifest = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            manifest.load(in);
+            return manifest;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private static void writeManifest(Path path, Properties manifest) throws IOException {
+        // Se escribe aparte y se renombra para no dejar nunca un manifiesto a medias
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            manifest.store(out, "Estado del cifrado incremental");
+        }
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,374 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+
+/**
+ * The {@code KeyCache} class remembers the keys recovered by brute force, so cracking the same
+ * ciphertext again, such as a file delivered twice, skips scoring and decrypts once with the cached
+ * key. Ciphertexts are identified by a {@link Fingerprint}: their length and a CRC-32C of a sample
+ * made of the start, the end and windows spread over the rest, so fingerprinting a text costs the
+ * same whatever its size. Two ciphertexts of the same length that only differ outside the sample
+ * share an entry.
+ *
+ * <p>The cache keeps the {@code capacity} fingerprints used most recently. It can also be backed by
+ * a file, which makes it survive restarts: entries are appended to it as they are added and read
+ * back when the cache is opened, and the file is rewritten when it grows past twice the capacity.</p>
+ *
+ * <p>Instances are safe to share between threads.</p>
+ */
+
+public class KeyCache {
+
+    /**
+     * Number of fingerprints kept when the {@code cripto.cache.claves.max} system property is not set.
+     */
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    /**
+     * Number of characters, or bytes for files, sampled at the start and at the end.
+     */
+    static final int EDGE_SAMPLE = 1024;
+
+    /**
+     * Number of windows sampled between the start and the end.
+     */
+    static final int WINDOWS = 14;
+
+    /**
+     * Length of each window.
+     */
+    static final int WINDOW_SAMPLE = 256;
+
+    private static final int MAGIC = 0x4B434143;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int ENTRY_SIZE = 2 * Long.BYTES + 2 * Integer.BYTES;
+
+    /**
+     * Identifies a ciphertext: its length, the checksum of its sample and the alphabet and language
+     * it was cracked for.
+     */
+    public static final class Fingerprint {
+        private final long length;
+        private final long checksum;
+        private final int context;
+
+        Fingerprint(long length, long checksum, int context) {
+            this.length = length;
+            this.checksum = checksum;
+            this.context = context;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Fingerprint)) {
+                return false;
+            }
+            Fingerprint fingerprint = (Fingerprint) other;
+            return length == fingerprint.length && checksum == fingerprint.checksum && context == fingerprint.context;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(length, checksum, context);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d:%08x:%08x", length, checksum, context);
+        }
+    }
+
+    private final int capacity;
+    private final Path file;
+    private final LinkedHashMap<Fingerprint, Integer> keys;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long fileEntries;
+
+    /**
+     * Constructs an empty in-memory cache.
+     *
+     * @param capacity the number of fingerprints to keep
+     * @throws IllegalArgumentException if {@code capacity} is less than 1
+     */
+    public KeyCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("La capacidad de la caché debe ser mayor que cero");
+        }
+        this.capacity = capacity;
+        this.file = null;
+        this.keys = newMap();
+    }
+
+    /**
+     * Constructs a cache backed by a file, loading the entries it already holds. The file is
+     * created on the first entry added.
+     *
+     * @param capacity the number of fingerprints to keep
+     * @param file the file that persists the entries
+     * @throws IOException if the file exists but cannot be read
+     * @throws IllegalArgumentException if {@code capacity} is less than 1 or the file is not a key cache
+     */
+    public KeyCache(int capacity, Path file) throws IOException {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("La capacidad de la caché debe ser mayor que cero");
+        }
+        this.capacity = capacity;
+        this.file = file;
+        this.keys = newMap();
+        if (Files.exists(file)) {
+            load();
+        }
+    }
+
+    /**
+     * Opens the cache configured with the {@code cripto.cache.claves.max} and
+     * {@code cripto.cache.claves.archivo} system properties: in memory only unless a file is given.
+     *
+     * @return the configured cache
+     * @throws IOException if the file exists but cannot be read
+     */
+    public static KeyCache openDefault() throws IOException {
+        int capacity = Integer.getInteger("cripto.cache.claves.max", DEFAULT_CAPACITY);
+        String path = System.getProperty("cripto.cache.claves.archivo");
+        return path == null ? new KeyCache(capacity) : new KeyCache(capacity, Paths.get(path));
+    }
+
+    private LinkedHashMap<Fingerprint, Integer> newMap() {
+        // Orden de acceso: el primero es el usado hace más tiempo
+        return new LinkedHashMap<Fingerprint, Integer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Fingerprint, Integer> eldest) {
+                if (size() > capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Computes the fingerprint of a text.
+     *
+     * @param text the ciphertext
+     * @param context a value that tells apart ciphertexts cracked for different alphabets or languages
+     * @return the fingerprint of the text
+     */
+    public static Fingerprint fingerprint(CharSequence text, int context) {
+        int length = text.length();
+        ByteBuffer sample = ByteBuffer.allocate(sampleLength(length) * Character.BYTES);
+        CharBuffer chars = sample.asCharBuffer();
+        if (length <= 2 * EDGE_SAMPLE + WINDOWS * WINDOW_SAMPLE) {
+            chars.append(text);
+        } else {
+            chars.append(text, 0, EDGE_SAMPLE);
+            long stride = (length - 2L * EDGE_SAMPLE) / (WINDOWS + 1);
+            for (int i = 1; i <= WINDOWS; i++) {
+                int start = (int) (EDGE_SAMPLE + i * stride - WINDOW_SAMPLE / 2);
+                chars.append(text, start, start + WINDOW_SAMPLE);
+            }
+            chars.append(text, length - EDGE_SAMPLE, length);
+        }
+        sample.limit(chars.position() * Character.BYTES);
+        CRC32C crc = new CRC32C();
+        crc.update(sample);
+        return new Fingerprint(length, crc.getValue(), context);
+    }
+
+    /**
+     * Computes the fingerprint of a file from the same sample positions, counted in bytes. It only
+     * reads the sample, not the whole file.
+     *
+     * @param path the encrypted file
+     * @param context a value that tells apart ciphertexts cracked for different alphabets or languages
+     * @return the fingerprint of the file; files and texts never share fingerprints
+     * @throws IOException if an I/O error occurs while reading the file
+     */
+    public static Fingerprint fingerprint(Path path, int context) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer sample = ByteBuffer.allocate(sampleLength(size));
+            if (size <= 2 * EDGE_SAMPLE + WINDOWS * WINDOW_SAMPLE) {
+                read(channel, sample, 0, (int) size);
+            } else {
+                read(channel, sample, 0, EDGE_SAMPLE);
+                long stride = (size - 2L * EDGE_SAMPLE) / (WINDOWS + 1);
+                for (int i = 1; i <= WINDOWS; i++) {
+                    read(channel, sample, EDGE_SAMPLE + i * stride - WINDOW_SAMPLE / 2, WINDOW_SAMPLE);
+                }
+                read(channel, sample, size - EDGE_SAMPLE, EDGE_SAMPLE);
+            }
+            sample.flip();
+            CRC32C crc = new CRC32C();
+            crc.update(sample);
+            // El bit alto separa las huellas de archivos de las de textos
+            return new Fingerprint(size, crc.getValue() | 1L << 63, context);
+        }
+    }
+
+    private static int sampleLength(long length) {
+        return (int) Math.min(length, 2 * EDGE_SAMPLE + WINDOWS * WINDOW_SAMPLE);
+    }
+
+    private static void read(FileChannel channel, ByteBuffer sample, long position, int length) throws IOException {
+        int start = sample.position();
+        sample.limit(start + length);
+        while (sample.hasRemaining() && channel.read(sample, position + sample.position() - start) != -1) {
+            // La lectura posicional puede devolver menos bytes de los pedidos
+        }
+        sample.limit(sample.capacity());
+    }
+
+    /**
+     * Looks up the key of a ciphertext, counting a hit or a miss.
+     *
+     * @param fingerprint the fingerprint of the ciphertext
+     * @return the cached key, or {@code null} if the ciphertext has not been cracked before
+     */
+    public Integer get(Fingerprint fingerprint) {
+        Integer key;
+        synchronized (this) {
+            key = keys.get(fingerprint);
+            if (key == null) {
+                misses++;
+            } else {
+                hits++;
+            }
+        }
+        Metrics.GLOBAL.recordKeyCache(key != null);
+        return key;
+    }
+
+    /**
+     * Adds the key recovered for a ciphertext, appending it to the file if there is one. A failure
+     * to write the file is ignored: the entry stays in memory.
+     *
+     * @param fingerprint the fingerprint of the ciphertext
+     * @param key the recovered key
+     */
+    public synchronized void put(Fingerprint fingerprint, int key) {
+        Integer previous = keys.put(fingerprint, key);
+        if (file == null || (previous != null && previous == key)) {
+            return;
+        }
+        try {
+            if (fileEntries >= 2L * capacity) {
+                compact();
+            } else {
+                append(fingerprint, key);
+            }
+        } catch (IOException e) {
+            // La caché en disco es opcional: la entrada sigue en memoria
+        }
+    }
+
+    private void append(Fingerprint fingerprint, int key) throws IOException {
+        boolean created = !Files.exists(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.allocate((created ? HEADER_SIZE : 0) + ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (created) {
+                buffer.putInt(MAGIC).putInt(VERSION);
+            }
+            put(buffer, fingerprint, key);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        fileEntries++;
+    }
+
+    private static void put(ByteBuffer buffer, Fingerprint fingerprint, int key) {
+        buffer.putLong(fingerprint.length).putLong(fingerprint.checksum).putInt(fingerprint.context).putInt(key);
+    }
+
+    /**
+     * Rewrites the file with the entries in memory, from the least to the most recently used.
+     */
+    private void compact() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + keys.size() * ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        for (Map.Entry<Fingerprint, Integer> entry : keys.entrySet()) {
+            put(buffer, entry.getKey(), entry.getValue());
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temporary, buffer.array());
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        fileEntries = keys.size();
+    }
+
+    private void load() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IllegalArgumentException("El archivo no es una caché de claves válida: " + file);
+        }
+        // Una entrada a medias al final, de una escritura interrumpida, se ignora
+        while (buffer.remaining() >= ENTRY_SIZE) {
+            keys.put(new Fingerprint(buffer.getLong(), buffer.getLong(), buffer.getInt()), buffer.getInt());
+            fileEntries++;
+        }
+        evictions = 0;
+    }
+
+    /**
+     * Gets the number of lookups that found a key.
+     *
+     * @return the hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that did not find a key.
+     *
+     * @return the misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of entries dropped to stay within the capacity.
+     *
+     * @return the evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the number of fingerprints cached.
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return keys.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        long lookups = hits + misses;
+        return String.format("Caché de claves: %d entradas, %d aciertos, %d fallos (%.1f %% de aciertos), %d descartadas",
+                keys.size(), hits, misses, lookups == 0 ? 0.0 : 100.0 * hits / lookups, evictions);
+    }
+}
@@ -0,0 +1,141 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The {@code Language} enum describes the languages the brute force attack can recognize:
+ * their built-in dictionary, their common short words and the frequency of their letters.
+ */
+
+public enum Language {
+
+    /**
+     * Spanish, the default language.
+     */
+    SPANISH("es",
+            new double[] {
+                    12.53, 1.42, 4.68, 5.86, 13.68, 0.69, 1.01, 0.70, 6.25, 0.44, 0.02, 4.97, 3.15,
+                    6.71, 8.68, 2.51, 0.88, 6.87, 7.98, 4.63, 3.93, 0.90, 0.01, 0.22, 0.90, 0.52
+            },
+            "áéíóúüñ", new double[] {0.50, 0.43, 0.72, 0.83, 0.17, 0.02, 0.31},
+            new String[] {
+                    "de","del","la","el","un","una","los","las","y","o","no",
+                    "que","en","es","lo","lo","por","para","con","un","una",
+                    "yo","tu","el","ella","nosotros","ellos","ellas","me","te","lo","la","los","las","y","o","no",
+                    "este", "es",  "mensaje",  "prueba",
+                    "ser","tener","hacer","decir","ir","venir","ver","dar","tomar",
+                    "muy","bien","mal","poco","mucho","poca","mucha","pocos","muchos","poca","mucha",
+                    "rápido","lento","alto","bajo","grande","pequeño","grande","pequeño","grande","pequeño",
+                    "casa", "el", "perro", "la", "gata",
+                    "hombre","mujer","niño","niña","niños","niñas","hombres","mujeres","niños","niñas",
+                    "manzana","pera","uva","manzanas","peras","uvas","manzana","pera","uva","manzanas","peras",
+                    "mundo","cielo","tierra","agua","fuego","aire","viento","lluvia","nieve","sol","luna","estrellas","planetas",
+                    "rojo","azul","verde","amarillo","morado","rosa","negro","blanco","gris","naranja",
+                    "rápido","lento","alto","bajo","grande","pequeño",
+                    "aquí","allí","dónde","cuándo","porqué","cómo","cuánto","cuántos","cuántas","cuál",
+                    "ahora","entonces","también","así","también",
+                    "luego","siempre","estas",
+                    "hola","adios","buenos","días","noches","buenas","tardes","buenas","noches",
+                    "mensaje","prueba","cifrado","descifrado","criptografía","criptoanálisis","criptografía","criptoanálisis"
+            },
+            "de", "la", "el", "un", "una", "los", "las", "y", "o", "no"),
+
+    /**
+     * English.
+     */
+    ENGLISH("en",
+            new double[] {
+                    8.17, 1.49, 2.78, 4.25, 12.70, 2.23, 2.02, 6.09, 6.97, 0.15, 0.77, 4.03, 2.41,
+                    6.75, 7.51, 1.93, 0.10, 5.99, 6.33, 9.06, 2.76, 0.98, 2.36, 0.15, 1.97, 0.07
+            },
+            "", new double[0],
+            new String[] {
+                    "the","of","and","to","in","is","was","it","for","on","with","as","at","by","from",
+                    "this","that","these","those","he","she","we","they","you","his","her","their","our",
+                    "be","have","has","had","do","does","did","say","said","go","get","make","know","see",
+                    "come","take","give","find","think","tell","use","work","call","try","ask","need",
+                    "very","well","good","bad","new","old","big","small","long","little","great","high",
+                    "here","there","where","when","why","how","what","which","who","now","then","also",
+                    "always","never","today","hello","goodbye","morning","night","day","days",
+                    "house","dog","cat","man","woman","child","children","men","women","world","sky",
+                    "earth","water","fire","air","wind","rain","snow","sun","moon","stars",
+                    "red","blue","green","yellow","black","white","message","test","cipher","encrypted"
+            },
+            "the", "be", "to", "of", "and", "a", "in", "that", "have", "i",
+            "it", "for", "not", "on", "with", "he", "as", "you", "do", "at");
+
+    private final String code;
+    private final double[] letterFrequencies;
+    private final String otherLetters;
+    private final double[] otherLetterFrequencies;
+    private final String[] dictionaryWords;
+    private final List<String> commonShortWords;
+
+    Language(String code, double[] letterFrequencies, String otherLetters, double[] otherLetterFrequencies,
+             String[] dictionaryWords, String... commonShortWords) {
+        this.code = code;
+        this.letterFrequencies = letterFrequencies;
+        this.otherLetters = otherLetters;
+        this.otherLetterFrequencies = otherLetterFrequencies;
+        this.dictionaryWords = dictionaryWords;
+        this.commonShortWords = Collections.unmodifiableList(Arrays.asList(commonShortWords));
+    }
+
+    /**
+     * Finds a language by its ISO 639-1 code.
+     *
+     * @param code the language code, such as {@code "es"} or {@code "en"}
+     * @return the language with that code
+     * @throws IllegalArgumentException if no language has that code
+     */
+    public static Language fromCode(String code) {
+        for (Language language : values()) {
+            if (language.code.equalsIgnoreCase(code.trim())) {
+                return language;
+            }
+        }
+        throw new IllegalArgumentException("Idioma no soportado: " + code);
+    }
+
+    /**
+     * Gets the ISO 639-1 code of the language.
+     *
+     * @return the language code
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Gets the relative frequency of a lower-case letter, from {@code a} to {@code z} or one of the
+     * accented letters of the language such as {@code ñ}.
+     *
+     * @param letter the letter
+     * @return the frequency of the letter, between 0 and 1; 0 for letters the language does not use
+     */
+    public double letterFrequency(char letter) {
+        if (letter >= 'a' && letter <= 'z') {
+            return letterFrequencies[letter - 'a'] / 100;
+        }
+        int position = otherLetters.indexOf(letter);
+        return position == -1 ? 0 : otherLetterFrequencies[position] / 100;
+    }
+
+    /**
+     * Gets the built-in dictionary, used when no dictionary file is given.
+     *
+     * @return the words of the built-in dictionary, possibly with repetitions
+     */
+    public String[] getDictionaryWords() {
+        return dictionaryWords.clone();
+    }
+
+    /**
+     * Gets the common short words that earn a bonus when scoring text.
+     *
+     * @return an unmodifiable list of common short words
+     */
+    public List<String> getCommonShortWords() {
+        return commonShortWords;
+    }
+}
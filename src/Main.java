@@ -1,5 +1,7 @@
 import java.util.Scanner;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 /**
  * The {@code Main} class provides the main user interface to interact with the Caesar Cipher, Brute Force,
@@ -8,14 +10,56 @@ import java.io.IOException;
  */
 public class Main {
     private final Scanner scanner;
-    private final BruteForce bruteForce;
+    private BruteForce bruteForce;
 
     /**
      * Constructs a {@code Main} object and initializes all the components required for encryption and decryption operations.
+     * The dictionary is loaded the first time an option needs it, so the menu shows up at once.
      */
     public Main() {
         scanner = new Scanner(System.in);
-        bruteForce = new BruteForce(new CaesarCipher(3));
+    }
+
+    /**
+     * Gets the {@code BruteForce} object, creating it on first use.
+     *
+     * @return the configured {@code BruteForce} object
+     */
+    private BruteForce bruteForce() {
+        if (bruteForce == null) {
+            bruteForce = createBruteForce();
+        }
+        return bruteForce;
+    }
+
+    /**
+     * Creates the {@code BruteForce} object for the language given by the {@code cripto.idioma} system
+     * property ({@code es} by default), using the dictionary file given by {@code cripto.diccionario}
+     * if there is one.
+     *
+     * @return the configured {@code BruteForce} object
+     */
+    private BruteForce createBruteForce() {
+        Language language = Language.fromCode(System.getProperty("cripto.idioma", "es"));
+        String dictionaryPath = System.getProperty("cripto.diccionario");
+        BruteForce bruteForce = null;
+        if (dictionaryPath != null) {
+            try {
+                bruteForce = new BruteForce(new CaesarCipher(), language, WordTable.load(Paths.get(dictionaryPath)));
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("No se pudo cargar el diccionario, se usará el integrado: " + e.getMessage());
+            }
+        }
+        if (bruteForce == null) {
+            bruteForce = new BruteForce(new CaesarCipher(), language);
+        }
+        try {
+            bruteForce.setKeyCache(KeyCache.openDefault());
+        } catch (IOException e) {
+            System.out.println("No se pudo abrir la caché de claves, se usará una en memoria: " + e.getMessage());
+            bruteForce.setKeyCache(new KeyCache(KeyCache.DEFAULT_CAPACITY));
+        }
+        return bruteForce;
     }
 
     /**
@@ -23,6 +67,7 @@ public class Main {
      * The user is given options to encrypt, decrypt, perform brute force decryption, or exit the application.
      */
     public void run() {
+        Metrics.publish();
         Validator validator = new Validator();
         FileManager fileManager = new FileManager(validator, scanner);
         try {
@@ -31,6 +76,7 @@ public class Main {
             scanner.nextLine();
             String outputFilePath;
             int key;
+            long start;
 
             switch (option) {
                 case 1:
@@ -65,11 +111,12 @@ public class Main {
 
                     System.out.println("Introduce el nombre del archivo de salida:");
                     outputFilePath = scanner.nextLine();
+                    start = System.nanoTime();
                     String encryptedText = CaesarCipher.encrypt(plaintextContent, key);
                     try {
                         fileManager.writeFile(outputFilePath, encryptedText);
                         System.out.println("Archivo cifrado y guardado en " + outputFilePath);
-                        createPropertiesFile(fileManager,inputFilePath, outputFilePath, key);
+                        recordRun(RunLog.Operation.ENCRYPT, inputFilePath, outputFilePath, key, start);
                     } catch (Exception e) {
                         System.out.println("Error al escribir el archivo de salida: " + e.getMessage());
                     }
@@ -80,20 +127,14 @@ public class Main {
                     String encryptedFilePath = scanner.nextLine();
                     try {
                         String encryptedContent = fileManager.readFile(encryptedFilePath);
-                        System.out.println("Introduce la clave:");
-                        while (true) {
-                            try {
-                                key = Integer.parseInt(scanner.nextLine().trim());
-                                break;
-                            } catch (NumberFormatException e) {
-                                System.out.println("Clave inválida. Introduzca un número entero:");
-                            }
-                        }
+                        key = readDecryptionKey(encryptedFilePath);
                         System.out.println("Introduce el nombre del archivo de salida:");
                         outputFilePath = scanner.nextLine();
+                        start = System.nanoTime();
                         String decryptedContent = CaesarCipher.decrypt(encryptedContent, key);
                         fileManager.writeFile(outputFilePath, decryptedContent);
                         System.out.println("Archivo descifrado y guardado en " + outputFilePath);
+                        recordRun(RunLog.Operation.DECRYPT, encryptedFilePath, outputFilePath, key, start);
                     } catch (IOException e) {
                         System.out.println("Error de E/S: " + e.getMessage());
                     } catch (IllegalArgumentException e) {
@@ -108,9 +149,12 @@ public class Main {
                         String encryptedContent = fileManager.readFile(ciphertext);
                         System.out.println("Ingrese el nombre del archivo de salida:");
                         outputFilePath = scanner.nextLine();
-                        String decryptedContent = bruteForce.bruteForce(encryptedContent);
-                        fileManager.writeFile(outputFilePath, decryptedContent);
+                        start = System.nanoTime();
+                        CrackResult result = bruteForce().bruteForceSampled(encryptedContent, BruteForce.DEFAULT_CONFIDENCE);
+                        System.out.println(result);
+                        fileManager.writeFile(outputFilePath, result.getPlaintext());
                         System.out.println("Archivo descifrado por fuerza bruta y guardado en " + outputFilePath);
+                        recordRun(RunLog.Operation.CRACK, ciphertext, outputFilePath, result.getKey(), start);
                     } catch (IOException e) {
                         System.out.println("Error de E/S: " + e.getMessage());
                     } catch (Exception e) {
@@ -118,6 +162,109 @@ public class Main {
                     }
                     break;
 
+                case 4:
+                    System.out.println("¿Desea cifrar (c) o descifrar (d)?");
+                    boolean encrypt = scanner.nextLine().trim().equalsIgnoreCase("c");
+                    System.out.println("Ingrese el nombre del archivo de entrada:");
+                    String largeInputPath = scanner.nextLine();
+                    if (encrypt) {
+                        System.out.println("Introduce la clave:");
+                        while (true) {
+                            try {
+                                key = Integer.parseInt(scanner.nextLine().trim());
+                                break;
+                            } catch (NumberFormatException e) {
+                                System.out.println("Clave inválida. Introduzca un número entero:");
+                            }
+                        }
+                    } else {
+                        key = readDecryptionKey(largeInputPath);
+                    }
+                    System.out.println("Introduce el nombre del archivo de salida:");
+                    outputFilePath = scanner.nextLine();
+                    int threads = Runtime.getRuntime().availableProcessors();
+                    System.out.println("Número de hilos (Enter para usar " + threads + "):");
+                    String threadsResponse = scanner.nextLine().trim();
+                    try {
+                        if (!threadsResponse.isEmpty()) {
+                            threads = Integer.parseInt(threadsResponse);
+                        }
+                        try (ParallelCipher parallelCipher = new ParallelCipher(threads)) {
+                            start = System.nanoTime();
+                            if (encrypt) {
+                                fileManager.encryptFile(largeInputPath, outputFilePath, key, parallelCipher);
+                                recordRun(RunLog.Operation.ENCRYPT, largeInputPath, outputFilePath, key, start);
+                            } else {
+                                fileManager.decryptFile(largeInputPath, outputFilePath, key, parallelCipher);
+                                recordRun(RunLog.Operation.DECRYPT, largeInputPath, outputFilePath, key, start);
+                            }
+                        }
+                    } catch (IOException e) {
+                        System.out.println("Error de E/S: " + e.getMessage());
+                    } catch (IllegalArgumentException e) {
+                        System.out.println("Error: " + e.getMessage());
+                    }
+                    break;
+
+                case 5:
+                    System.out.println("Ingrese el nombre del archivo cifrado:");
+                    String analyzedFilePath = scanner.nextLine();
+                    System.out.println("Ingrese el nombre del archivo de salida:");
+                    outputFilePath = scanner.nextLine();
+                    try {
+                        start = System.nanoTime();
+                        key = bruteForce().findKey(Paths.get(analyzedFilePath));
+                        System.out.println("Clave más probable según la frecuencia de caracteres: " + key);
+                        fileManager.decryptFile(analyzedFilePath, outputFilePath, key);
+                        System.out.println("Archivo descifrado por análisis estadístico y guardado en " + outputFilePath);
+                        recordRun(RunLog.Operation.CRACK, analyzedFilePath, outputFilePath, key, start);
+                    } catch (IOException e) {
+                        System.out.println("Error de E/S: " + e.getMessage());
+                    } catch (IllegalArgumentException e) {
+                        System.out.println("Error: " + e.getMessage());
+                    }
+                    break;
+
+                case 6:
+                    System.out.println("Ingrese el directorio de entrada:");
+                    String inputDirectory = scanner.nextLine().trim();
+                    System.out.println("Patrón de archivos (Enter para procesar todos):");
+                    String glob = scanner.nextLine().trim();
+                    System.out.println("¿Desea cifrar (c), descifrar (d) o descifrar por fuerza bruta (f)?");
+                    String operationResponse = scanner.nextLine().trim().toLowerCase();
+                    BatchProcessor.Operation operation = operationResponse.equals("c") ? BatchProcessor.Operation.ENCRYPT
+                            : operationResponse.equals("d") ? BatchProcessor.Operation.DECRYPT : BatchProcessor.Operation.CRACK;
+                    key = 0;
+                    if (operation != BatchProcessor.Operation.CRACK) {
+                        System.out.println("Introduce la clave:");
+                        while (true) {
+                            try {
+                                key = Integer.parseInt(scanner.nextLine().trim());
+                                break;
+                            } catch (NumberFormatException e) {
+                                System.out.println("Clave inválida. Introduzca un número entero:");
+                            }
+                        }
+                    }
+                    System.out.println("Ingrese el directorio de salida:");
+                    String outputDirectory = scanner.nextLine().trim();
+                    int processors = Runtime.getRuntime().availableProcessors();
+                    try (BatchProcessor batchProcessor = new BatchProcessor(operation == BatchProcessor.Operation.CRACK ? bruteForce() : null, processors * 4, processors, processors * 16);
+                         RunLog runLog = RunLog.openDefault()) {
+                        batchProcessor.setRunLog(runLog);
+                        BatchReport report = batchProcessor.process(Paths.get(inputDirectory), glob.isEmpty() ? "*" : glob,
+                                Paths.get(outputDirectory), operation, key);
+                        report.print(System.out);
+                    } catch (IOException e) {
+                        System.out.println("Error de E/S: " + e.getMessage());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        System.out.println("Proceso interrumpido.");
+                    } catch (IllegalArgumentException e) {
+                        System.out.println("Error: " + e.getMessage());
+                    }
+                    break;
+
                 case 0:
                     System.out.println("Saliendo del programa.");
                     break;
@@ -131,21 +278,53 @@ public class Main {
     }
 
     /**
-     * Creates a properties file with information about the input file, output file, and encryption key.
+     * Asks for the key to decrypt a file, offering the one recorded in the run log when the file
+     * was encrypted by this application.
+     *
+     * @param encryptedFilePath the path of the file to decrypt
+     * @return the key entered by the user, or the recorded one if the user just pressed Enter
+     */
+    private int readDecryptionKey(String encryptedFilePath) {
+        RunLog.Record recorded = null;
+        try (RunLog runLog = RunLog.openDefault()) {
+            recorded = runLog.findKey(Paths.get(encryptedFilePath));
+        } catch (IOException e) {
+            System.out.println("No se pudo leer el registro de ejecuciones: " + e.getMessage());
+        }
+        System.out.println(recorded == null ? "Introduce la clave:"
+                : "Introduce la clave (Enter para usar la registrada, " + recorded.getKey() + "):");
+        while (true) {
+            String response = scanner.nextLine().trim();
+            if (response.isEmpty() && recorded != null) {
+                return recorded.getKey();
+            }
+            try {
+                return Integer.parseInt(response);
+            } catch (NumberFormatException e) {
+                System.out.println("Clave inválida. Introduzca un número entero:");
+            }
+        }
+    }
+
+    /**
+     * Adds a finished operation to the run log, which replaces the old {@code files/properties.txt}.
+     * Nothing is recorded if the output was not written.
      *
+     * @param operation what was done
      * @param inputFilePath the path of the input file
      * @param outputFilePath the path of the output file
-     * @param key the encryption key used
+     * @param key the key used
+     * @param start the value of {@link System#nanoTime()} when the operation started
      */
-    private void createPropertiesFile(FileManager fileManager,String inputFilePath, String outputFilePath, int key) {
-        String propertiesContent = "Ruta del archivo de entrada: " + inputFilePath + "\n" +
-                "Ruta del archivo de salida: " + outputFilePath + "\n" +
-                "Clave: " + key;
-        try {
-            fileManager.writeFile("files/properties.txt", propertiesContent);
-            System.out.println("Archivo de propiedades creado: files/properties.txt");
+    private void recordRun(RunLog.Operation operation, String inputFilePath, String outputFilePath, int key, long start) {
+        if (!Files.exists(Paths.get(outputFilePath))) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        try (RunLog runLog = RunLog.openDefault()) {
+            runLog.append(RunLog.Record.of(operation, Paths.get(inputFilePath), Paths.get(outputFilePath), key, nanos));
         } catch (IOException e) {
-            System.out.println("Error al crear el archivo de propiedades: " + e.getMessage());
+            System.out.println("Error al actualizar el registro de ejecuciones: " + e.getMessage());
         }
     }
 
@@ -159,6 +338,9 @@ public class Main {
         System.out.println("1. 📝 Cifrar archivo");
         System.out.println("2. 🔓 Descifrar archivo con clave");
         System.out.println("3. 🔨 Descifrar archivo por fuerza bruta");
+        System.out.println("4. 📦 Cifrar/descifrar archivo grande (por bloques)");
+        System.out.println("5. 📊 Descifrar archivo por análisis estadístico");
+        System.out.println("6. 🗂️  Procesar un directorio completo (lote)");
         System.out.println("0. 🚪 Salir");
         System.out.println("===========================================");
         System.out.print("Seleccione una opción: ");
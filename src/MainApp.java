@@ -2,15 +2,18 @@
 /**
  * The {@code MainApp} class serves as the entry point of the application.
  * It initializes and runs the main program interface for interacting with the Caesar Cipher, Brute Force,
- * and FileManager functionalities.
+ * and FileManager functionalities, or runs a single {@link CommandLine} operation when arguments are given.
  */
 public class MainApp {
     /**
      * The main method that starts the execution of the application.
      *
-     * @param args command-line arguments (not used)
+     * @param args the command and flags of a non-interactive run, or none to show the menu
      */
     public static void main(String[] args) {
+        if (args.length > 0) {
+            System.exit(CommandLine.run(args));
+        }
         Main mainProgram = new Main();
         mainProgram.run();
     }
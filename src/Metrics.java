@@ -0,0 +1,420 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The {@code Metrics} class counts where the application spends its time: bytes encrypted and
+ * decrypted and how long it took, the time of each {@link Phase}, the keys evaluated by brute force,
+ * the dictionary hit rate and the heap allocated per megabyte processed. Counters are
+ * {@code LongAdder}s updated once per file, chunk or batch of keys, never per character, so they
+ * can stay enabled in production.
+ *
+ * <p>The counters of {@link #GLOBAL} are published as the JMX MBean {@code cripto:type=Metrics} by
+ * the long-running modes through {@link #publish()}, unless {@code -Dcripto.metricas.jmx=false};
+ * single command-line operations only publish them with {@code -Dcripto.metricas.jmx=true}, since
+ * starting the MBean server takes longer than encrypting a small file. With {@code -Dcripto.metricas.archivo=ruta} they are
+ * also written to that file every {@code cripto.metricas.intervalo} seconds (60 by default) and at
+ * exit, as JSON if the path ends in {@code .json} and in the Prometheus text format otherwise. The heap
+ * allocated is only measured while someone can read the metrics, through JMX or the file.</p>
+ */
+
+public final class Metrics implements MetricsMBean {
+
+    /**
+     * Name of the MBean of {@link #GLOBAL}.
+     */
+    public static final String OBJECT_NAME = "cripto:type=Metrics";
+
+    /**
+     * A stage of an operation whose time is measured separately.
+     */
+    public enum Phase {
+        /** Reading and decoding input. */
+        READ,
+        /** Translating text with a key. */
+        TRANSFORM,
+        /** Scoring candidate keys. */
+        SCORE,
+        /** Encoding and writing output. */
+        WRITE;
+
+        private String code() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * The metrics of the whole application.
+     */
+    public static final Metrics GLOBAL = new Metrics();
+
+    private static final double MEGABYTE = 1024.0 * 1024.0;
+
+    private static volatile boolean observed;
+    private static boolean published;
+
+    static {
+        if (Boolean.parseBoolean(System.getProperty("cripto.metricas.jmx"))) {
+            publish();
+        }
+        String dumpPath = System.getProperty("cripto.metricas.archivo");
+        if (dumpPath != null) {
+            GLOBAL.startDump(Paths.get(dumpPath), Long.getLong("cripto.metricas.intervalo", 60));
+        }
+    }
+
+    private final LongAdder encryptedBytes = new LongAdder();
+    private final LongAdder encryptNanos = new LongAdder();
+    private final LongAdder decryptedBytes = new LongAdder();
+    private final LongAdder decryptNanos = new LongAdder();
+    private final LongAdder[] phaseNanos = new LongAdder[Phase.values().length];
+    private final LongAdder[] phaseCalls = new LongAdder[Phase.values().length];
+    private final LongAdder keysEvaluated = new LongAdder();
+    private final LongAdder words = new LongAdder();
+    private final LongAdder dictionaryHits = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder allocationTrackedBytes = new LongAdder();
+    private final LongAdder fileOperations = new LongAdder();
+    private final LongAdder keyCacheHits = new LongAdder();
+    private final LongAdder keyCacheMisses = new LongAdder();
+
+    /**
+     * Constructs a set of counters, all at zero.
+     */
+    Metrics() {
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] = new LongAdder();
+            phaseCalls[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records the encryption or decryption of a text or a file.
+     *
+     * @param encrypt {@code true} for encryption, {@code false} for decryption
+     * @param bytes the size of the input
+     * @param nanos how long it took
+     */
+    void recordCipher(boolean encrypt, long bytes, long nanos) {
+        (encrypt ? encryptedBytes : decryptedBytes).add(bytes);
+        (encrypt ? encryptNanos : decryptNanos).add(nanos);
+    }
+
+    /**
+     * Records the time spent in one phase.
+     *
+     * @param phase the phase
+     * @param nanos how long it took
+     */
+    void recordPhase(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()].add(nanos);
+        phaseCalls[phase.ordinal()].increment();
+    }
+
+    /**
+     * Records how many candidate keys were scored.
+     *
+     * @param keys the number of keys
+     */
+    void recordKeys(long keys) {
+        keysEvaluated.add(keys);
+    }
+
+    /**
+     * Records the words of a scored text and how many were in the dictionary.
+     *
+     * @param scored the number of words looked up
+     * @param hits the number found
+     */
+    void recordWords(long scored, long hits) {
+        words.add(scored);
+        dictionaryHits.add(hits);
+    }
+
+    /**
+     * Records a lookup in a {@link KeyCache}.
+     *
+     * @param hit {@code true} if the key was cached
+     */
+    void recordKeyCache(boolean hit) {
+        (hit ? keyCacheHits : keyCacheMisses).increment();
+    }
+
+    /**
+     * Records a file operation and the heap its thread allocated while processing it.
+     *
+     * @param bytes the size of the input
+     * @param allocated the bytes allocated, from two calls to {@link #threadAllocatedBytes()}; ignored if negative
+     */
+    void recordFile(long bytes, long allocated) {
+        fileOperations.increment();
+        if (allocated >= 0) {
+            allocatedBytes.add(allocated);
+            allocationTrackedBytes.add(bytes);
+        }
+    }
+
+    /**
+     * Publishes {@link #GLOBAL} as the JMX MBean {@link #OBJECT_NAME}, unless
+     * {@code -Dcripto.metricas.jmx=false}. Calling it again does nothing.
+     */
+    public static synchronized void publish() {
+        if (published || !Boolean.parseBoolean(System.getProperty("cripto.metricas.jmx", "true"))) {
+            return;
+        }
+        published = true;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(GLOBAL, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            // Otra copia de la clase ya lo registró: las métricas siguen disponibles en memoria
+        }
+        observed = true;
+    }
+
+    /**
+     * Gets the bytes allocated so far by the current thread. Nothing is measured while the metrics
+     * are neither published nor dumped, which spares loading the management classes.
+     *
+     * @return the allocated bytes, or {@code -1} if the JVM cannot measure it or nobody reads the metrics
+     */
+    static long threadAllocatedBytes() {
+        if (!observed) {
+            return -1;
+        }
+        return Allocation.BEAN == null ? -1 : Allocation.BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Holds the thread bean, loaded on the first measure.
+     */
+    private static final class Allocation {
+        static final com.sun.management.ThreadMXBean BEAN = load();
+
+        private static com.sun.management.ThreadMXBean load() {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+                ((com.sun.management.ThreadMXBean) bean).setThreadAllocatedMemoryEnabled(true);
+                return (com.sun.management.ThreadMXBean) bean;
+            }
+            return null;
+        }
+    }
+
+    @Override
+    public long getEncryptedBytes() {
+        return encryptedBytes.sum();
+    }
+
+    @Override
+    public long getDecryptedBytes() {
+        return decryptedBytes.sum();
+    }
+
+    @Override
+    public double getEncryptMegabytesPerSecond() {
+        return throughput(encryptedBytes.sum(), encryptNanos.sum());
+    }
+
+    @Override
+    public double getDecryptMegabytesPerSecond() {
+        return throughput(decryptedBytes.sum(), decryptNanos.sum());
+    }
+
+    @Override
+    public double getReadMillis() {
+        return millis(Phase.READ);
+    }
+
+    @Override
+    public double getTransformMillis() {
+        return millis(Phase.TRANSFORM);
+    }
+
+    @Override
+    public double getScoreMillis() {
+        return millis(Phase.SCORE);
+    }
+
+    @Override
+    public double getWriteMillis() {
+        return millis(Phase.WRITE);
+    }
+
+    @Override
+    public long getKeysEvaluated() {
+        return keysEvaluated.sum();
+    }
+
+    @Override
+    public double getDictionaryHitRate() {
+        long scored = words.sum();
+        return scored == 0 ? 0 : (double) dictionaryHits.sum() / scored;
+    }
+
+    @Override
+    public double getAllocatedBytesPerMegabyte() {
+        if (Allocation.BEAN == null) {
+            return -1;
+        }
+        long tracked = allocationTrackedBytes.sum();
+        return tracked == 0 ? 0 : allocatedBytes.sum() / (tracked / MEGABYTE);
+    }
+
+    @Override
+    public long getFileOperations() {
+        return fileOperations.sum();
+    }
+
+    @Override
+    public long getKeyCacheHits() {
+        return keyCacheHits.sum();
+    }
+
+    @Override
+    public long getKeyCacheMisses() {
+        return keyCacheMisses.sum();
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder counter : new LongAdder[] {encryptedBytes, encryptNanos, decryptedBytes, decryptNanos,
+                keysEvaluated, words, dictionaryHits, allocatedBytes, allocationTrackedBytes, fileOperations,
+                keyCacheHits, keyCacheMisses}) {
+            counter.reset();
+        }
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i].reset();
+            phaseCalls[i].reset();
+        }
+    }
+
+    private double millis(Phase phase) {
+        return phaseNanos[phase.ordinal()].sum() / 1e6;
+    }
+
+    private static double throughput(long bytes, long nanos) {
+        return nanos == 0 ? 0 : bytes / MEGABYTE / (nanos / 1e9);
+    }
+
+    /**
+     * Formats the counters in the Prometheus text exposition format.
+     *
+     * @return the metrics, one sample per line
+     */
+    public String toPrometheus() {
+        StringBuilder text = new StringBuilder();
+        text.append("# TYPE cripto_bytes_total counter\n");
+        text.append("cripto_bytes_total{operation=\"encrypt\"} ").append(encryptedBytes.sum()).append('\n');
+        text.append("cripto_bytes_total{operation=\"decrypt\"} ").append(decryptedBytes.sum()).append('\n');
+        text.append("# TYPE cripto_cipher_seconds_total counter\n");
+        text.append("cripto_cipher_seconds_total{operation=\"encrypt\"} ").append(seconds(encryptNanos.sum())).append('\n');
+        text.append("cripto_cipher_seconds_total{operation=\"decrypt\"} ").append(seconds(decryptNanos.sum())).append('\n');
+        text.append("# TYPE cripto_phase_seconds_total counter\n");
+        for (Phase phase : Phase.values()) {
+            text.append("cripto_phase_seconds_total{phase=\"").append(phase.code()).append("\"} ")
+                    .append(seconds(phaseNanos[phase.ordinal()].sum())).append('\n');
+        }
+        text.append("# TYPE cripto_phase_calls_total counter\n");
+        for (Phase phase : Phase.values()) {
+            text.append("cripto_phase_calls_total{phase=\"").append(phase.code()).append("\"} ")
+                    .append(phaseCalls[phase.ordinal()].sum()).append('\n');
+        }
+        text.append("# TYPE cripto_keys_evaluated_total counter\n");
+        text.append("cripto_keys_evaluated_total ").append(keysEvaluated.sum()).append('\n');
+        text.append("# TYPE cripto_dictionary_words_total counter\n");
+        text.append("cripto_dictionary_words_total ").append(words.sum()).append('\n');
+        text.append("# TYPE cripto_dictionary_hits_total counter\n");
+        text.append("cripto_dictionary_hits_total ").append(dictionaryHits.sum()).append('\n');
+        text.append("# TYPE cripto_allocated_bytes_total counter\n");
+        text.append("cripto_allocated_bytes_total ").append(allocatedBytes.sum()).append('\n');
+        text.append("# TYPE cripto_allocation_tracked_bytes_total counter\n");
+        text.append("cripto_allocation_tracked_bytes_total ").append(allocationTrackedBytes.sum()).append('\n');
+        text.append("# TYPE cripto_file_operations_total counter\n");
+        text.append("cripto_file_operations_total ").append(fileOperations.sum()).append('\n');
+        text.append("# TYPE cripto_key_cache_lookups_total counter\n");
+        text.append("cripto_key_cache_lookups_total{result=\"hit\"} ").append(keyCacheHits.sum()).append('\n');
+        text.append("cripto_key_cache_lookups_total{result=\"miss\"} ").append(keyCacheMisses.sum()).append('\n');
+        return text.toString();
+    }
+
+    /**
+     * Formats the counters and the rates derived from them as a JSON object.
+     *
+     * @return the metrics as a single line of JSON
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"encryptedBytes\":").append(encryptedBytes.sum());
+        json.append(",\"decryptedBytes\":").append(decryptedBytes.sum());
+        json.append(",\"encryptMbPerSecond\":").append(format(getEncryptMegabytesPerSecond()));
+        json.append(",\"decryptMbPerSecond\":").append(format(getDecryptMegabytesPerSecond()));
+        for (Phase phase : Phase.values()) {
+            json.append(",\"").append(phase.code()).append("Millis\":").append(format(millis(phase)));
+        }
+        json.append(",\"keysEvaluated\":").append(keysEvaluated.sum());
+        json.append(",\"dictionaryHitRate\":").append(format(getDictionaryHitRate()));
+        json.append(",\"allocatedBytesPerMb\":").append(format(getAllocatedBytesPerMegabyte()));
+        json.append(",\"fileOperations\":").append(fileOperations.sum());
+        json.append(",\"keyCacheHits\":").append(keyCacheHits.sum());
+        json.append(",\"keyCacheMisses\":").append(keyCacheMisses.sum());
+        return json.append('}').toString();
+    }
+
+    private static String seconds(long nanos) {
+        return format(nanos / 1e9);
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.6f", value);
+    }
+
+    /**
+     * Writes the metrics to a file now, replacing it atomically.
+     *
+     * @param path the file to write; JSON if it ends in {@code .json}, Prometheus text otherwise
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public void dump(Path path) throws IOException {
+        String content = path.toString().endsWith(".json") ? toJson() + "\n" : toPrometheus();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temporary, content.getBytes(StandardCharsets.UTF_8));
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void startDump(Path path, long intervalSeconds) {
+        observed = true;
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "cripto-metricas");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Runnable dump = () -> {
+            try {
+                dump(path);
+            } catch (IOException e) {
+                System.err.println("No se pudieron escribir las métricas en " + path + ": " + e.getMessage());
+            }
+        };
+        long interval = Math.max(1, intervalSeconds);
+        scheduler.scheduleAtFixedRate(dump, interval, interval, TimeUnit.SECONDS);
+        // Volcado final para que las ejecuciones cortas también dejen sus métricas
+        Runtime.getRuntime().addShutdownHook(new Thread(dump, "cripto-metricas-final"));
+    }
+}
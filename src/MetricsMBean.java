@@ -0,0 +1,110 @@
+/**
+ * The {@code MetricsMBean} interface is the JMX view of {@link Metrics}, registered as
+ * {@code cripto:type=Metrics}. Totals count from the start of the process or the last {@link #reset()}.
+ */
+
+public interface MetricsMBean {
+
+    /**
+     * Gets the number of bytes encrypted.
+     *
+     * @return the encrypted bytes
+     */
+    long getEncryptedBytes();
+
+    /**
+     * Gets the number of bytes decrypted, including those decrypted with a recovered key.
+     *
+     * @return the decrypted bytes
+     */
+    long getDecryptedBytes();
+
+    /**
+     * Gets the average encryption throughput.
+     *
+     * @return the encrypted megabytes per second spent encrypting
+     */
+    double getEncryptMegabytesPerSecond();
+
+    /**
+     * Gets the average decryption throughput.
+     *
+     * @return the decrypted megabytes per second spent decrypting
+     */
+    double getDecryptMegabytesPerSecond();
+
+    /**
+     * Gets the time spent reading input.
+     *
+     * @return the milliseconds spent in {@link Metrics.Phase#READ}
+     */
+    double getReadMillis();
+
+    /**
+     * Gets the time spent translating text.
+     *
+     * @return the milliseconds spent in {@link Metrics.Phase#TRANSFORM}
+     */
+    double getTransformMillis();
+
+    /**
+     * Gets the time spent scoring candidate keys.
+     *
+     * @return the milliseconds spent in {@link Metrics.Phase#SCORE}
+     */
+    double getScoreMillis();
+
+    /**
+     * Gets the time spent writing output.
+     *
+     * @return the milliseconds spent in {@link Metrics.Phase#WRITE}
+     */
+    double getWriteMillis();
+
+    /**
+     * Gets the number of candidate keys scored by brute force and frequency analysis.
+     *
+     * @return the keys evaluated
+     */
+    long getKeysEvaluated();
+
+    /**
+     * Gets the fraction of scored words found in the dictionary.
+     *
+     * @return the dictionary hit rate, from 0 to 1
+     */
+    double getDictionaryHitRate();
+
+    /**
+     * Gets the heap allocated by file operations on their calling thread per megabyte processed.
+     *
+     * @return the allocated bytes per megabyte, or {@code -1} if the JVM cannot measure it
+     */
+    double getAllocatedBytesPerMegabyte();
+
+    /**
+     * Gets the number of files encrypted or decrypted.
+     *
+     * @return the file operations
+     */
+    long getFileOperations();
+
+    /**
+     * Gets the number of cracks that found their key in a {@link KeyCache}.
+     *
+     * @return the key cache hits
+     */
+    long getKeyCacheHits();
+
+    /**
+     * Gets the number of cracks that had to score the candidate keys.
+     *
+     * @return the key cache misses
+     */
+    long getKeyCacheMisses();
+
+    /**
+     * Sets every counter back to zero.
+     */
+    void reset();
+}
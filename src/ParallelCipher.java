@@ -0,0 +1,311 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The {@code ParallelCipher} class applies the Caesar cipher on several threads. Large inputs are
+ * split into ranges that are translated independently on a {@code ForkJoinPool} and written back
+ * in their original order. Inputs smaller than the configured threshold are translated on the
+ * calling thread.
+ *
+ * <p>Instances are immutable and can be shared between threads. A cipher with more than one thread
+ * owns its pool and must be closed once it is no longer needed.</p>
+ */
+
+public class ParallelCipher implements AutoCloseable {
+
+    /**
+     * Default number of characters (or bytes) below which the work stays on the calling thread.
+     */
+    public static final int DEFAULT_THRESHOLD = 1024 * 1024;
+
+    /**
+     * Smallest range handed to a single task.
+     */
+    private static final int MIN_RANGE = 64 * 1024;
+
+    /**
+     * Size in bytes of each range of UTF-8 input decoded by a single task.
+     */
+    static final int UTF8_RANGE = 4 * 1024 * 1024;
+
+    /**
+     * A cipher that never splits the work, used when no parallelism is requested.
+     */
+    static final ParallelCipher SEQUENTIAL = new ParallelCipher(1);
+
+    private final int parallelism;
+    private final int threshold;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a {@code ParallelCipher} with the specified number of threads and the default threshold.
+     *
+     * @param parallelism the number of threads to use
+     * @throws IllegalArgumentException if {@code parallelism} is less than 1
+     */
+    public ParallelCipher(int parallelism) {
+        this(parallelism, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Constructs a {@code ParallelCipher} with the specified number of threads and threshold.
+     *
+     * @param parallelism the number of threads to use
+     * @param threshold the input size below which the work is not split
+     * @throws IllegalArgumentException if {@code parallelism} or {@code threshold} is less than 1
+     */
+    public ParallelCipher(int parallelism, int threshold) {
+        if (parallelism < 1 || threshold < 1) {
+            throw new IllegalArgumentException("El número de hilos y el umbral deben ser mayores que cero");
+        }
+        this.parallelism = parallelism;
+        this.threshold = threshold;
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    /**
+     * Gets the number of threads used by this cipher.
+     *
+     * @return the parallelism level
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Shuts down the thread pool of this cipher. Work already submitted is completed, but the cipher
+     * must not be used afterwards. Closing {@link #SEQUENTIAL}, or a cipher with one thread, does nothing.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Encrypts a plaintext string, splitting the work between threads when it is large enough.
+     * The result is identical to {@link CaesarCipher#encrypt(String, int)}.
+     *
+     * @param plaintext the text to be encrypted
+     * @param key the number of positions to shift the characters
+     * @return the encrypted string
+     */
+    public String encrypt(String plaintext, int key) {
+        return translate(plaintext, CaesarCipher.tableFor(key));
+    }
+
+    /**
+     * Decrypts a ciphertext string, splitting the work between threads when it is large enough.
+     * The result is identical to {@link CaesarCipher#decrypt(String, int)}.
+     *
+     * @param ciphertext the text to be decrypted
+     * @param key the number of positions used in the original encryption
+     * @return the decrypted string
+     */
+    public String decrypt(String ciphertext, int key) {
+        return translate(ciphertext, CaesarCipher.tableFor(CaesarCipher.inverse(key)));
+    }
+
+    private String translate(String text, TranslationTable table) {
+        char[] chars = text.toCharArray();
+        if (!isSplit(chars.length)) {
+            table.translate(chars, 0, chars.length);
+        } else {
+            pool.invoke(new CharRangeTask(chars, 0, chars.length, table, rangeFor(chars.length)));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Translates the remaining ASCII bytes of {@code source} into {@code target}, splitting the work
+     * between threads when it is large enough. See {@link CaesarCipher#translate(ByteBuffer, ByteBuffer, byte[])}.
+     *
+     * @param source the ASCII bytes to translate
+     * @param target the buffer receiving the translated bytes
+     * @param table the translation table from {@link CaesarCipher#byteTableFor(int)}
+     */
+    void translate(ByteBuffer source, ByteBuffer target, byte[] table) {
+        int length = source.remaining();
+        if (!isSplit(length)) {
+            CaesarCipher.translate(source, target, table);
+        } else {
+            pool.invoke(new ByteRangeTask(source, target, source.position(), source.limit(), table, rangeFor(length)));
+        }
+    }
+
+    /**
+     * Translates UTF-8 encoded text and writes it to a channel. The input is cut into ranges of about
+     * {@link #UTF8_RANGE} bytes that always start at the first byte of a UTF-8 sequence, so no character
+     * (nor surrogate pair) is split. Each range is decoded, translated and encoded again by its own task,
+     * and written as soon as it and every earlier range are done. At most one range per thread is in
+     * flight, so the memory used does not depend on the size of {@code source}.
+     *
+     * @param source the UTF-8 bytes to translate; it must end at a sequence boundary
+     * @param table the translation table from {@link CaesarCipher#tableFor(int)}
+     * @param out the channel receiving the translated bytes, in input order
+     * @return the number of bytes written
+     * @throws IOException if an I/O error occurs while writing
+     */
+    long translateUtf8(ByteBuffer source, TranslationTable table, WritableByteChannel out) throws IOException {
+        Deque<Future<ByteBuffer>> inFlight = new ArrayDeque<>();
+        long written = 0;
+        long writeNanos = 0;
+        long began = System.nanoTime();
+        int start = source.position();
+        try {
+            while (start < source.limit() || !inFlight.isEmpty()) {
+                while (start < source.limit() && inFlight.size() < parallelism) {
+                    int end = start + UTF8_RANGE >= source.limit() ? source.limit() : alignUtf8(source, start + UTF8_RANGE);
+                    ByteBuffer range = source.duplicate();
+                    range.limit(end).position(start);
+                    start = end;
+                    if (pool == null) {
+                        inFlight.add(CompletableFuture.completedFuture(translateUtf8Range(range, table)));
+                    } else {
+                        inFlight.add(pool.submit(() -> translateUtf8Range(range, table)));
+                    }
+                }
+                ByteBuffer result = inFlight.removeFirst().get();
+                long writing = System.nanoTime();
+                while (result.hasRemaining()) {
+                    written += out.write(result);
+                }
+                writeNanos += System.nanoTime() - writing;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Traducción interrumpida");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error al traducir un bloque", e.getCause());
+        } finally {
+            for (Future<ByteBuffer> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+        Metrics.GLOBAL.recordPhase(Metrics.Phase.TRANSFORM, System.nanoTime() - began - writeNanos);
+        Metrics.GLOBAL.recordPhase(Metrics.Phase.WRITE, writeNanos);
+        return written;
+    }
+
+    private static ByteBuffer translateUtf8Range(ByteBuffer range, TranslationTable table) {
+        try {
+            CharBuffer chars = FileManager.newDecoder().decode(range);
+            table.translate(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+            return FileManager.newEncoder().encode(chars);
+        } catch (CharacterCodingException e) {
+            // No ocurre: el decodificador y el codificador reemplazan la entrada mal formada
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Moves an index back to the first byte of the UTF-8 sequence that contains it.
+     * Malformed input never moves the index back more than three bytes.
+     *
+     * @param buffer the UTF-8 bytes
+     * @param index the candidate split position
+     * @return the closest split position at or before {@code index} that does not cut a sequence
+     */
+    static int alignUtf8(ByteBuffer buffer, int index) {
+        int aligned = index;
+        while (aligned > index - 3 && aligned > buffer.position() && (buffer.get(aligned) & 0xC0) == 0x80) {
+            aligned--;
+        }
+        return (buffer.get(aligned) & 0xC0) == 0x80 ? index : aligned;
+    }
+
+    private boolean isSplit(int length) {
+        return pool != null && length >= threshold;
+    }
+
+    private int rangeFor(int length) {
+        return Math.max(MIN_RANGE, length / (parallelism * 4));
+    }
+
+    /**
+     * Translates a range of a character array, halving it until it is small enough.
+     */
+    private static final class CharRangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final char[] chars;
+        private final int from;
+        private final int to;
+        private final TranslationTable table;
+        private final int range;
+
+        CharRangeTask(char[] chars, int from, int to, TranslationTable table, int range) {
+            this.chars = chars;
+            this.from = from;
+            this.to = to;
+            this.table = table;
+            this.range = range;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= range) {
+                table.translate(chars, from, to - from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            // No separar un par sustituto entre dos tareas
+            if (Character.isLowSurrogate(chars[middle]) && Character.isHighSurrogate(chars[middle - 1])) {
+                middle++;
+            }
+            invokeAll(new CharRangeTask(chars, from, middle, table, range),
+                      new CharRangeTask(chars, middle, to, table, range));
+        }
+    }
+
+    /**
+     * Translates a range of an ASCII byte buffer, halving it until it is small enough.
+     */
+    private static final class ByteRangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer source;
+        private final ByteBuffer target;
+        private final int from;
+        private final int to;
+        private final byte[] table;
+        private final int range;
+
+        ByteRangeTask(ByteBuffer source, ByteBuffer target, int from, int to, byte[] table, int range) {
+            this.source = source;
+            this.target = target;
+            this.from = from;
+            this.to = to;
+            this.table = table;
+            this.range = range;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= range) {
+                int offset = target.position() - source.position();
+                ByteBuffer sourceRange = source.duplicate();
+                sourceRange.limit(to).position(from);
+                ByteBuffer targetRange = target.duplicate();
+                targetRange.limit(to + offset).position(from + offset);
+                CaesarCipher.translate(sourceRange, targetRange, table);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ByteRangeTask(source, target, from, middle, table, range),
+                      new ByteRangeTask(source, target, middle, to, table, range));
+        }
+    }
+}
@@ -0,0 +1,561 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * The {@code RunLog} class keeps the history of every encryption and decryption in an append-only
+ * JSON Lines file: one object per run with the input and output paths, the key, the sizes, the
+ * duration, the throughput and a CRC-32C of both files. Records are never rewritten, so concurrent
+ * runs, batches and separate processes add to the same history without losing each other's lines.
+ *
+ * <p>Records are buffered and written in groups: a group is appended with a single write under a file
+ * lock and flushed to disk with a single {@code force}, when {@link #BATCH_SIZE} records are pending or
+ * when the log is flushed or closed. Threads keep appending to the next group while one is being
+ * written.</p>
+ *
+ * <p>Next to the log, an index with one entry per record lets {@link #findKey(Path)} find the key that
+ * produced an encrypted file without parsing the whole history. Each entry is 16 little-endian bytes:
+ * a 64-bit hash of the output path and the offset of the record in the log. The index is only a cache;
+ * records missing from it, for example after a crash, are indexed again on the next lookup.</p>
+ */
+
+public class RunLog implements AutoCloseable {
+
+    /**
+     * Path of the log when the {@code cripto.registro} system property is not set.
+     */
+    public static final String DEFAULT_PATH = "files/registro.jsonl";
+
+    /**
+     * Suffix added to the log path to name its index.
+     */
+    public static final String INDEX_SUFFIX = ".idx";
+
+    /**
+     * Number of pending records that triggers a write.
+     */
+    static final int BATCH_SIZE = 64;
+
+    private static final int INDEX_ENTRY = 2 * Long.BYTES;
+
+    /**
+     * Number of index entries read at a time while searching backwards.
+     */
+    private static final int INDEX_CHUNK = 4096;
+
+    /**
+     * The operation recorded.
+     */
+    public enum Operation {
+        /** Encryption with a known key. */
+        ENCRYPT,
+        /** Decryption with a known key. */
+        DECRYPT,
+        /** Decryption with a key recovered by brute force or frequency analysis. */
+        CRACK;
+
+        private String code() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * One run: what was done to which files, with which key, how long it took and the checksums of
+     * the result.
+     */
+    public static final class Record {
+        private final Instant time;
+        private final Operation operation;
+        private final String input;
+        private final String output;
+        private final int key;
+        private final long inputBytes;
+        private final long outputBytes;
+        private final long nanos;
+        private final long inputCrc;
+        private final long outputCrc;
+
+        Record(Instant time, Operation operation, String input, String output, int key,
+               long inputBytes, long outputBytes, long nanos, long inputCrc, long outputCrc) {
+            this.time = time;
+            this.operation = operation;
+            this.input = input;
+            this.output = output;
+            this.key = key;
+            this.inputBytes = inputBytes;
+            this.outputBytes = outputBytes;
+            this.nanos = nanos;
+            this.inputCrc = inputCrc;
+            this.outputCrc = outputCrc;
+        }
+
+        /**
+         * Describes a finished run, reading both files to compute their size and checksum.
+         *
+         * @param operation what was done
+         * @param input the file that was read
+         * @param output the file that was written
+         * @param key the key used
+         * @param nanos how long the run took, in nanoseconds
+         * @return the record of the run
+         * @throws IOException if an I/O error occurs while reading the files
+         */
+        public static Record of(Operation operation, Path input, Path output, int key, long nanos) throws IOException {
+            return new Record(Instant.now(), operation, canonical(input), canonical(output), key,
+                    Files.size(input), Files.size(output), nanos, checksum(input), checksum(output));
+        }
+
+        /**
+         * Gets when the run was recorded.
+         *
+         * @return the time of the run
+         */
+        public Instant getTime() {
+            return time;
+        }
+
+        /**
+         * Gets what was done.
+         *
+         * @return the operation
+         */
+        public Operation getOperation() {
+            return operation;
+        }
+
+        /**
+         * Gets the absolute path of the file that was read.
+         *
+         * @return the input path
+         */
+        public String getInput() {
+            return input;
+        }
+
+        /**
+         * Gets the absolute path of the file that was written.
+         *
+         * @return the output path
+         */
+        public String getOutput() {
+            return output;
+        }
+
+        /**
+         * Gets the key used.
+         *
+         * @return the key
+         */
+        public int getKey() {
+            return key;
+        }
+
+        /**
+         * Gets the size of the output file when it was written.
+         *
+         * @return the output size in bytes
+         */
+        public long getOutputBytes() {
+            return outputBytes;
+        }
+
+        /**
+         * Gets the CRC-32C of the output file when it was written.
+         *
+         * @return the checksum of the output
+         */
+        public long getOutputCrc() {
+            return outputCrc;
+        }
+
+        /**
+         * Writes the record as one line of JSON. Built with a {@code StringBuilder} rather than
+         * {@code String.format} or a long concatenation, whose first use costs more than a short run.
+         */
+        private String toJson() {
+            double seconds = nanos / 1e9;
+            double megabytesPerSecond = seconds > 0 ? inputBytes / (1024.0 * 1024.0) / seconds : 0;
+            StringBuilder json = new StringBuilder(256);
+            json.append("{\"time\":\"").append(time).append('"');
+            json.append(",\"operation\":\"").append(operation.code()).append('"');
+            json.append(",\"input\":").append(quote(input));
+            json.append(",\"output\":").append(quote(output));
+            json.append(",\"key\":").append(key);
+            json.append(",\"inputBytes\":").append(inputBytes);
+            json.append(",\"outputBytes\":").append(outputBytes);
+            appendFixed(json.append(",\"millis\":"), nanos / 1e6, 3);
+            appendFixed(json.append(",\"mbPerSecond\":"), megabytesPerSecond, 2);
+            appendHex(json.append(",\"inputCrc32c\":\""), inputCrc).append('"');
+            appendHex(json.append(",\"outputCrc32c\":\""), outputCrc).append("\"}");
+            return json.toString();
+        }
+
+        /**
+         * Appends a non-negative number with a fixed number of decimals, like {@code %.Nf} in the root locale.
+         */
+        private static StringBuilder appendFixed(StringBuilder text, double value, int decimals) {
+            long scale = 1;
+            for (int i = 0; i < decimals; i++) {
+                scale *= 10;
+            }
+            long scaled = Math.round(value * scale);
+            text.append(scaled / scale).append('.');
+            String fraction = Long.toString(scaled % scale);
+            for (int i = fraction.length(); i < decimals; i++) {
+                text.append('0');
+            }
+            return text.append(fraction);
+        }
+
+        /**
+         * Appends a checksum as eight lower-case hexadecimal digits, like {@code %08x}.
+         */
+        private static StringBuilder appendHex(StringBuilder text, long value) {
+            String hex = Long.toHexString(value);
+            for (int i = hex.length(); i < 8; i++) {
+                text.append('0');
+            }
+            return text.append(hex);
+        }
+
+        private static Record fromJson(String line) {
+            Map<String, String> fields = parse(line);
+            return new Record(Instant.parse(fields.get("time")),
+                    Operation.valueOf(fields.get("operation").toUpperCase(Locale.ROOT)),
+                    fields.get("input"), fields.get("output"), Integer.parseInt(fields.get("key")),
+                    Long.parseLong(fields.get("inputBytes")), Long.parseLong(fields.get("outputBytes")),
+                    Math.round(Double.parseDouble(fields.get("millis")) * 1e6),
+                    Long.parseLong(fields.get("inputCrc32c"), 16), Long.parseLong(fields.get("outputCrc32c"), 16));
+        }
+
+        @Override
+        public String toString() {
+            return toJson();
+        }
+    }
+
+    private final Path path;
+    private final Path indexPath;
+    private final Object flushLock = new Object();
+    private List<Record> pending = new ArrayList<>();
+
+    /**
+     * Opens the log at a path. The file and its directory are created on the first write.
+     *
+     * @param path the JSON Lines file
+     */
+    public RunLog(Path path) {
+        this.path = path.toAbsolutePath();
+        this.indexPath = this.path.resolveSibling(this.path.getFileName() + INDEX_SUFFIX);
+    }
+
+    /**
+     * Opens the log given by the {@code cripto.registro} system property, or {@link #DEFAULT_PATH}.
+     *
+     * @return the configured log
+     */
+    public static RunLog openDefault() {
+        return new RunLog(Paths.get(System.getProperty("cripto.registro", DEFAULT_PATH)));
+    }
+
+    /**
+     * Adds a record. It is written with the next group, so it only reaches the disk after
+     * {@link #flush()}, {@link #close()} or once enough records are pending.
+     *
+     * @param record the record to add
+     * @throws IOException if writing a full group fails
+     */
+    public void append(Record record) throws IOException {
+        boolean full;
+        synchronized (this) {
+            pending.add(record);
+            full = pending.size() >= BATCH_SIZE;
+        }
+        if (full) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes every pending record and its index entries, and forces the log to disk.
+     *
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public void flush() throws IOException {
+        synchronized (flushLock) {
+            List<Record> group;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                group = pending;
+                pending = new ArrayList<>();
+            }
+            Files.createDirectories(path.getParent());
+            try (FileChannel log = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = log.lock();
+                try {
+                    // Bajo el cerrojo, el final del archivo es la posición de la primera línea del grupo
+                    long offset = log.size();
+                    StringBuilder lines = new StringBuilder();
+                    ByteBuffer entries = ByteBuffer.allocate(group.size() * INDEX_ENTRY).order(ByteOrder.LITTLE_ENDIAN);
+                    for (Record record : group) {
+                        String line = record.toJson() + "\n";
+                        entries.putLong(hash(record.output)).putLong(offset);
+                        offset += line.getBytes(StandardCharsets.UTF_8).length;
+                        lines.append(line);
+                    }
+                    ByteBuffer bytes = StandardCharsets.UTF_8.encode(lines.toString());
+                    long position = log.size();
+                    while (bytes.hasRemaining()) {
+                        position += log.write(bytes, position);
+                    }
+                    log.force(false);
+                    try (FileChannel index = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                        // El índice se puede reconstruir: no hace falta forzarlo a disco
+                        entries.flip();
+                        while (entries.hasRemaining()) {
+                            index.write(entries);
+                        }
+                    }
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the key of the most recent encryption that wrote a file, to decrypt it later.
+     *
+     * @param output the encrypted file
+     * @return the record of that encryption, or {@code null} if the log has none
+     * @throws IOException if an I/O error occurs while reading the log or its index
+     */
+    public Record findKey(Path output) throws IOException {
+        flush();
+        if (!Files.exists(path)) {
+            return null;
+        }
+        String target = canonical(output);
+        long hash = hash(target);
+        synchronized (flushLock) {
+            try (FileChannel log = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                FileLock lock = log.lock();
+                try (FileChannel index = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    catchUp(log, index);
+                    long entries = index.size() / INDEX_ENTRY;
+                    ByteBuffer chunk = ByteBuffer.allocate(INDEX_CHUNK * INDEX_ENTRY).order(ByteOrder.LITTLE_ENDIAN);
+                    // De la entrada más reciente a la más antigua
+                    for (long end = entries; end > 0; end -= INDEX_CHUNK) {
+                        long start = Math.max(0, end - INDEX_CHUNK);
+                        chunk.clear().limit((int) ((end - start) * INDEX_ENTRY));
+                        readFully(index, chunk, start * INDEX_ENTRY);
+                        for (int i = (int) (end - start) - 1; i >= 0; i--) {
+                            if (chunk.getLong(i * INDEX_ENTRY) != hash) {
+                                continue;
+                            }
+                            Record record = Record.fromJson(readLine(log, chunk.getLong(i * INDEX_ENTRY + Long.BYTES)));
+                            if (record.operation == Operation.ENCRYPT && record.output.equals(target)) {
+                                return record;
+                            }
+                        }
+                    }
+                    return null;
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Indexes the records written after the last index entry, such as those of a run that stopped
+     * between writing the log and the index.
+     */
+    private static void catchUp(FileChannel log, FileChannel index) throws IOException {
+        long entries = index.size() / INDEX_ENTRY;
+        // Una entrada a medias se descarta
+        index.truncate(entries * INDEX_ENTRY);
+        long indexed = 0;
+        if (entries > 0) {
+            ByteBuffer last = ByteBuffer.allocate(INDEX_ENTRY).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(index, last, (entries - 1) * INDEX_ENTRY);
+            long offset = last.getLong(Long.BYTES);
+            indexed = offset + readLine(log, offset).getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+        long size = log.size();
+        if (indexed >= size) {
+            return;
+        }
+        MappedByteBuffer tail = log.map(FileChannel.MapMode.READ_ONLY, indexed, size - indexed);
+        ByteArrayOutputStream added = new ByteArrayOutputStream();
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY).order(ByteOrder.LITTLE_ENDIAN);
+        int start = 0;
+        for (int i = 0; i < tail.limit(); i++) {
+            if (tail.get(i) != '\n') {
+                continue;
+            }
+            byte[] line = new byte[i - start];
+            tail.position(start);
+            tail.get(line);
+            String output = parse(new String(line, StandardCharsets.UTF_8)).get("output");
+            entry.clear();
+            entry.putLong(hash(output == null ? "" : output)).putLong(indexed + start);
+            added.write(entry.array(), 0, INDEX_ENTRY);
+            start = i + 1;
+        }
+        ByteBuffer missing = ByteBuffer.wrap(added.toByteArray());
+        while (missing.hasRemaining()) {
+            index.write(missing, index.size());
+        }
+    }
+
+    private static String readLine(FileChannel log, long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        long position = offset;
+        while (true) {
+            buffer.clear();
+            int read = log.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (b == '\n') {
+                    return new String(line.toByteArray(), StandardCharsets.UTF_8);
+                }
+                line.write(b);
+            }
+            position += read;
+        }
+        return new String(line.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) != -1) {
+            // La lectura posicional puede devolver menos bytes de los pedidos
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Writes the pending records.
+     *
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    /**
+     * Computes the CRC-32C of a file, reading it through a memory mapping.
+     *
+     * @param path the file to read
+     * @return the checksum of its content
+     * @throws IOException if an I/O error occurs while reading the file
+     */
+    static long checksum(Path path) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += FileManager.MAP_WINDOW) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(FileManager.MAP_WINDOW, size - position)));
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static String canonical(Path path) {
+        return path.toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a path, stable between runs.
+     */
+    private static long hash(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Reads the fields of a flat JSON object whose values are strings or numbers, as written by
+     * {@link Record#toJson()}.
+     */
+    private static Map<String, String> parse(String line) {
+        Map<String, String> fields = new HashMap<>();
+        int i = line.indexOf('{') + 1;
+        while (i > 0 && i < line.length()) {
+            int keyStart = line.indexOf('"', i);
+            if (keyStart < 0) {
+                break;
+            }
+            int keyEnd = line.indexOf('"', keyStart + 1);
+            int colon = line.indexOf(':', keyEnd);
+            String name = line.substring(keyStart + 1, keyEnd);
+            i = colon + 1;
+            StringBuilder value = new StringBuilder();
+            if (line.charAt(i) == '"') {
+                for (i++; i < line.length() && line.charAt(i) != '"'; i++) {
+                    char c = line.charAt(i);
+                    if (c == '\\') {
+                        char escaped = line.charAt(++i);
+                        if (escaped == 'u') {
+                            value.append((char) Integer.parseInt(line.substring(i + 1, i + 5), 16));
+                            i += 4;
+                        } else {
+                            value.append(escaped);
+                        }
+                    } else {
+                        value.append(c);
+                    }
+                }
+                i++;
+            } else {
+                for (; i < line.length() && line.charAt(i) != ',' && line.charAt(i) != '}'; i++) {
+                    value.append(line.charAt(i));
+                }
+            }
+            fields.put(name, value.toString());
+            i = line.indexOf(',', i) + 1;
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,348 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The {@code SegmentAnalyzer} class cracks texts made of parts encrypted with different keys, such as
+ * records from several sources concatenated in one file, which a single global key would leave mostly
+ * unreadable. The text is read once, in chunks, and each part is decrypted with its own key.
+ *
+ * <p>A window with the last characters read slides over the text, keeping the histogram of its
+ * alphabet characters: each character updates it in constant time as it enters and as it leaves. A few
+ * times per window length the histogram is scored like {@link BruteForce#findKey(long[])} does. When
+ * another key beats the current one by a clear margin, the key changed inside the window, and the exact
+ * change point is the one that best splits the window between both keys. Everything before it is
+ * decrypted with the old key and written, and the analysis goes on with the new one.</p>
+ *
+ * <p>Only the window is kept in memory, so files of any size can be cracked. Parts much shorter than
+ * half a window cannot be told apart from the text around them and are decrypted with its key.</p>
+ */
+
+public class SegmentAnalyzer {
+
+    /**
+     * Number of characters in the sliding window by default.
+     */
+    public static final int DEFAULT_WINDOW = 256;
+
+    /**
+     * Number of times the window is scored while it slides its own length.
+     */
+    private static final int CHECKS_PER_WINDOW = 8;
+
+    /**
+     * Minimum log-likelihood, in nats, by which another key must beat the current one in the window
+     * to start a new segment.
+     */
+    private static final double MIN_GAIN = 24;
+
+    /**
+     * Maximum distance, in characters, from the most likely change point to a separator that is
+     * taken as the change point instead.
+     */
+    private static final int SNAP_DISTANCE = 4;
+
+    /**
+     * Maximum log-likelihood, in nats, lost by moving the change point to a separator.
+     */
+    private static final double SNAP_TOLERANCE = 6;
+
+    /**
+     * Number of characters read at once.
+     */
+    private static final int READ_SIZE = 8192;
+
+    /**
+     * The {@code Segment} class is a part of the text decrypted with one key. Positions count UTF-16
+     * characters from the start of the text.
+     */
+    public static final class Segment {
+        private final long start;
+        private final long end;
+        private final int key;
+
+        Segment(long start, long end, int key) {
+            this.start = start;
+            this.end = end;
+            this.key = key;
+        }
+
+        /**
+         * Gets the position of the first character of the segment.
+         *
+         * @return the start of the segment, inclusive
+         */
+        public long getStart() {
+            return start;
+        }
+
+        /**
+         * Gets the position right after the last character of the segment.
+         *
+         * @return the end of the segment, exclusive
+         */
+        public long getEnd() {
+            return end;
+        }
+
+        /**
+         * Gets the key that decrypts the segment.
+         *
+         * @return the key of the segment
+         */
+        public int getKey() {
+            return key;
+        }
+
+        @Override
+        public String toString() {
+            return "Caracteres " + start + "-" + end + ": clave " + key;
+        }
+    }
+
+    private final Alphabet alphabet;
+    private final int length;
+    private final double[][] logProbabilities;
+    private final int window;
+    private final int step;
+
+    /**
+     * Constructs a {@code SegmentAnalyzer} that recognizes the language and alphabet of a
+     * {@code BruteForce} object, with a window of {@link #DEFAULT_WINDOW} characters.
+     *
+     * @param bruteForce the {@code BruteForce} object whose language model is used
+     */
+    public SegmentAnalyzer(BruteForce bruteForce) {
+        this(bruteForce, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Constructs a {@code SegmentAnalyzer} that recognizes the language and alphabet of a
+     * {@code BruteForce} object. Larger windows tell keys apart more reliably but miss shorter parts.
+     *
+     * @param bruteForce the {@code BruteForce} object whose language model is used
+     * @param window the number of characters in the sliding window
+     * @throws IllegalArgumentException if the window is shorter than {@code 2 * CHECKS_PER_WINDOW}
+     */
+    public SegmentAnalyzer(BruteForce bruteForce, int window) {
+        if (window < 2 * CHECKS_PER_WINDOW) {
+            throw new IllegalArgumentException("La ventana debe tener al menos " + 2 * CHECKS_PER_WINDOW + " caracteres");
+        }
+        this.alphabet = bruteForce.getAlphabet();
+        this.length = alphabet.length();
+        this.window = window;
+        this.step = window / CHECKS_PER_WINDOW;
+        // Tabla rotada por clave: evita calcular el módulo en cada puntuación
+        double[] symbolLogProbabilities = bruteForce.getSymbolLogProbabilities();
+        this.logProbabilities = new double[length][length];
+        for (int key = 0; key < length; key++) {
+            for (int index = 0; index < length; index++) {
+                logProbabilities[key][index] = symbolLogProbabilities[Math.floorMod(index - key, length)];
+            }
+        }
+    }
+
+    /**
+     * Cracks a text, writing it decrypted segment by segment as the analysis goes on. The writer is
+     * neither flushed nor closed.
+     *
+     * @param reader the encrypted text
+     * @param writer receives the decrypted text
+     * @return the segments found, in order; adjacent segments always have different keys
+     * @throws IOException if an I/O error occurs while reading or writing
+     */
+    public List<Segment> crack(Reader reader, Writer writer) throws IOException {
+        return new Pass(writer).run(reader);
+    }
+
+    /**
+     * Holds the state of one run of {@link #crack(Reader, Writer)}. The buffer keeps the characters
+     * from {@code base} on: at least the current window, plus the last chunk read.
+     */
+    private final class Pass {
+        private final Writer writer;
+        private final char[] buffer = new char[window + READ_SIZE];
+        private final int[] indices = new int[buffer.length];
+        private final int[] histogram = new int[length];
+        private final int[] present = new int[length];
+        private final double[] gains = new double[window + 1];
+        private final List<Segment> segments = new ArrayList<>();
+        private long base;
+        private int size;
+        private int pending;
+        private long segmentStart;
+        private int key = -1;
+        private long checks;
+        private long scoreNanos;
+
+        Pass(Writer writer) {
+            this.writer = writer;
+        }
+
+        List<Segment> run(Reader reader) throws IOException {
+            int read;
+            while (true) {
+                if (size == buffer.length) {
+                    compact();
+                }
+                read = reader.read(buffer, size, buffer.length - size);
+                if (read == -1) {
+                    break;
+                }
+                for (int i = size; i < size + read; i++) {
+                    int index = alphabet.indexOf(buffer[i]);
+                    indices[i] = index;
+                    if (index >= 0) {
+                        histogram[index]++;
+                    }
+                    long position = base + i;
+                    if (position >= window) {
+                        int leaving = indices[i - window];
+                        if (leaving >= 0) {
+                            histogram[leaving]--;
+                        }
+                    }
+                    if (position + 1 >= window && (position + 1 - window) % step == 0) {
+                        check(i + 1);
+                    }
+                }
+                size += read;
+            }
+            long end = base + size;
+            if (key == -1 || (end - window) % step != 0) {
+                check(size);
+            }
+            if (end > 0) {
+                write(size);
+                endSegment(end);
+            }
+            Metrics.GLOBAL.recordPhase(Metrics.Phase.SCORE, scoreNanos);
+            Metrics.GLOBAL.recordKeys(checks * length);
+            return Collections.unmodifiableList(segments);
+        }
+
+        /**
+         * Scores the window ending right before {@code buffer[end]} and starts a new segment if
+         * another key fits it clearly better than the current one.
+         */
+        private void check(int end) throws IOException {
+            long start = System.nanoTime();
+            int distinct = 0;
+            for (int index = 0; index < length; index++) {
+                if (histogram[index] != 0) {
+                    present[distinct++] = index;
+                }
+            }
+            int bestKey = 0;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            double currentScore = 0;
+            for (int candidate = 0; candidate < length; candidate++) {
+                double[] logProbability = logProbabilities[candidate];
+                double score = 0;
+                for (int i = 0; i < distinct; i++) {
+                    int index = present[i];
+                    score += histogram[index] * logProbability[index];
+                }
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestKey = candidate;
+                }
+                if (candidate == key) {
+                    currentScore = score;
+                }
+            }
+            checks++;
+            scoreNanos += System.nanoTime() - start;
+            if (key == -1) {
+                key = bestKey;
+            } else if (bestKey != key && bestScore - currentScore >= MIN_GAIN) {
+                int boundary = changePoint(Math.max(pending, end - window), end, key, bestKey);
+                write(boundary);
+                endSegment(base + boundary);
+                key = bestKey;
+            }
+        }
+
+        /**
+         * Finds where the text between {@code buffer[from]} and {@code buffer[end]} switches from one
+         * key to the other: the split that maximizes the log-likelihood of the part before under the
+         * old key plus that of the part after under the new one. Ties go to the latest split, so the
+         * separators between records stay with the record they end.
+         *
+         * <p>Single characters say little about their key, so the best split often lands a character
+         * or two away from the real one. A nearby split right after a character outside the alphabet,
+         * such as a line break, that is almost as likely is preferred.</p>
+         */
+        private int changePoint(int from, int end, int oldKey, int newKey) {
+            double[] before = logProbabilities[oldKey];
+            double[] after = logProbabilities[newKey];
+            int boundary = from;
+            double gain = 0;
+            double bestGain = 0;
+            gains[0] = 0;
+            for (int i = from; i < end; i++) {
+                int index = indices[i];
+                if (index >= 0) {
+                    gain += before[index] - after[index];
+                }
+                gains[i + 1 - from] = gain;
+                if (gain >= bestGain) {
+                    bestGain = gain;
+                    boundary = i + 1;
+                }
+            }
+            for (int distance = 0; distance <= SNAP_DISTANCE; distance++) {
+                for (int split : new int[] {boundary + distance, boundary - distance}) {
+                    if (split > from && split <= end && indices[split - 1] < 0
+                            && gains[split - from] >= bestGain - SNAP_TOLERANCE) {
+                        return split;
+                    }
+                }
+            }
+            return boundary;
+        }
+
+        /**
+         * Decrypts with the current key and writes the pending characters up to {@code buffer[end]}.
+         */
+        private void write(int end) throws IOException {
+            if (end > pending) {
+                TableRegistry.SHARED.get(alphabet, -key).translate(buffer, pending, end - pending);
+                writer.write(buffer, pending, end - pending);
+                pending = end;
+            }
+        }
+
+        /**
+         * Closes the current segment at a position, merging it with the previous one if their keys match.
+         */
+        private void endSegment(long end) {
+            if (end == segmentStart) {
+                return;
+            }
+            Segment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (last != null && last.getKey() == key) {
+                segments.set(segments.size() - 1, new Segment(last.getStart(), end, key));
+            } else {
+                segments.add(new Segment(segmentStart, end, key));
+            }
+            segmentStart = end;
+        }
+
+        /**
+         * Writes the characters that left the window and moves the window to the start of the buffer.
+         */
+        private void compact() throws IOException {
+            int keep = Math.min(window, size);
+            write(size - keep);
+            System.arraycopy(buffer, size - keep, buffer, 0, keep);
+            System.arraycopy(indices, size - keep, indices, 0, keep);
+            pending -= size - keep;
+            base += size - keep;
+            size = keep;
+        }
+    }
+}
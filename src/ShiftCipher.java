@@ -0,0 +1,292 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.ReadOnlyBufferException;
+
+/**
+ * The {@code ShiftCipher} class is a Caesar cipher bound to an alphabet and a key. Instances are
+ * immutable and can be shared between threads; their translation tables come from a shared registry,
+ * so creating a cipher for a key already in use does not rebuild anything.
+ *
+ * <p>Besides {@code String}s, text can be translated between {@code CharBuffer}s, from a
+ * {@code CharSequence} into any {@code Appendable}, and between {@code ByteBuffer}s holding ASCII or
+ * UTF-8 text, so callers can write into their own buffers without intermediate copies.</p>
+ */
+
+public final class ShiftCipher {
+
+    /**
+     * Number of characters translated at a time when writing into an {@code Appendable}.
+     */
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private final TranslationTable forward;
+    private final TranslationTable backward;
+
+    private ShiftCipher(TranslationTable forward, TranslationTable backward) {
+        this.forward = forward;
+        this.backward = backward;
+    }
+
+    /**
+     * Gets the cipher for a key with the configured alphabet, {@link Alphabet#DEFAULT}.
+     *
+     * @param key the number of positions to shift the characters; any value is allowed and wraps around
+     * @return the cipher for that key
+     */
+    public static ShiftCipher of(int key) {
+        return of(Alphabet.DEFAULT, key);
+    }
+
+    /**
+     * Gets the cipher for an alphabet and a key.
+     *
+     * @param alphabet the characters to shift
+     * @param key the number of positions to shift the characters; any value is allowed and wraps around
+     * @return the cipher for that alphabet and key
+     */
+    public static ShiftCipher of(Alphabet alphabet, int key) {
+        return new ShiftCipher(TableRegistry.SHARED.get(alphabet, key), TableRegistry.SHARED.get(alphabet, CaesarCipher.inverse(key, alphabet.length())));
+    }
+
+    /**
+     * Gets the alphabet of this cipher.
+     *
+     * @return the alphabet
+     */
+    public Alphabet getAlphabet() {
+        return forward.alphabet;
+    }
+
+    /**
+     * Gets the key of this cipher, reduced to the range of the alphabet.
+     *
+     * @return the shift, from 0 to {@code getAlphabet().length() - 1}
+     */
+    public int getShift() {
+        return forward.shift;
+    }
+
+    /**
+     * Encrypts a text.
+     *
+     * @param plaintext the text to encrypt
+     * @return the encrypted text
+     */
+    public String encrypt(CharSequence plaintext) {
+        return translate(plaintext, forward);
+    }
+
+    /**
+     * Decrypts a text.
+     *
+     * @param ciphertext the text to decrypt
+     * @return the decrypted text
+     */
+    public String decrypt(CharSequence ciphertext) {
+        return translate(ciphertext, backward);
+    }
+
+    /**
+     * Encrypts the remaining characters of {@code source} into {@code target}, advancing the position
+     * of both buffers. The buffers may be the same one.
+     *
+     * @param source the characters to encrypt
+     * @param target the buffer receiving the encrypted characters
+     * @throws BufferOverflowException if {@code target} has less room than the characters of {@code source}
+     * @throws ReadOnlyBufferException if {@code target} is read-only
+     */
+    public void encrypt(CharBuffer source, CharBuffer target) {
+        translate(source, target, forward);
+    }
+
+    /**
+     * Decrypts the remaining characters of {@code source} into {@code target}, advancing the position
+     * of both buffers. The buffers may be the same one.
+     *
+     * @param source the characters to decrypt
+     * @param target the buffer receiving the decrypted characters
+     * @throws BufferOverflowException if {@code target} has less room than the characters of {@code source}
+     * @throws ReadOnlyBufferException if {@code target} is read-only
+     */
+    public void decrypt(CharBuffer source, CharBuffer target) {
+        translate(source, target, backward);
+    }
+
+    /**
+     * Encrypts the remaining bytes of {@code source} into {@code target}, advancing the position of
+     * both buffers. The buffers may be the same one. The bytes must be ASCII or UTF-8 text: bytes of multi-byte UTF-8 sequences are
+     * never changed, so the output is valid UTF-8 whenever the input is.
+     *
+     * @param source the encoded text to encrypt
+     * @param target the buffer receiving the encrypted bytes
+     * @throws BufferOverflowException if {@code target} has less room than the bytes of {@code source}
+     * @throws ReadOnlyBufferException if {@code target} is read-only
+     * @throws UnsupportedOperationException if the alphabet has non-ASCII characters, which would
+     *         change the length of the encoded text
+     */
+    public void encrypt(ByteBuffer source, ByteBuffer target) {
+        translate(source, target, forward.bytes);
+    }
+
+    /**
+     * Decrypts the remaining bytes of {@code source} into {@code target}, advancing the position of
+     * both buffers. The buffers may be the same one. The bytes must be ASCII or UTF-8 text.
+     *
+     * @param source the encoded text to decrypt
+     * @param target the buffer receiving the decrypted bytes
+     * @throws BufferOverflowException if {@code target} has less room than the bytes of {@code source}
+     * @throws ReadOnlyBufferException if {@code target} is read-only
+     * @throws UnsupportedOperationException if the alphabet has non-ASCII characters
+     */
+    public void decrypt(ByteBuffer source, ByteBuffer target) {
+        translate(source, target, backward.bytes);
+    }
+
+    /**
+     * Encrypts a text and appends the result to {@code target}.
+     *
+     * @param plaintext the text to encrypt
+     * @param target where to append the encrypted text, such as a {@code StringBuilder} or a {@code Writer}
+     * @param <A> the type of the target
+     * @return {@code target}
+     * @throws IOException if {@code target} fails to append
+     */
+    public <A extends Appendable> A encrypt(CharSequence plaintext, A target) throws IOException {
+        translate(plaintext, target, forward);
+        return target;
+    }
+
+    /**
+     * Decrypts a text and appends the result to {@code target}.
+     *
+     * @param ciphertext the text to decrypt
+     * @param target where to append the decrypted text, such as a {@code StringBuilder} or a {@code Writer}
+     * @param <A> the type of the target
+     * @return {@code target}
+     * @throws IOException if {@code target} fails to append
+     */
+    public <A extends Appendable> A decrypt(CharSequence ciphertext, A target) throws IOException {
+        translate(ciphertext, target, backward);
+        return target;
+    }
+
+    /**
+     * Gets the cipher that undoes this one.
+     *
+     * @return the cipher whose encryption is the decryption of this one
+     */
+    public ShiftCipher inverse() {
+        return new ShiftCipher(backward, forward);
+    }
+
+    private static String translate(CharSequence text, TranslationTable table) {
+        char[] chars = text.toString().toCharArray();
+        table.translate(chars, 0, chars.length);
+        return new String(chars);
+    }
+
+    private static void translate(CharBuffer source, CharBuffer target, TranslationTable table) {
+        int length = source.remaining();
+        if (source == target) {
+            translateInPlace(source, table);
+            return;
+        }
+        if (target.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        if (source.hasArray() && target.hasArray()) {
+            // Copia entre arrays y traducción en el destino; arraycopy admite solapamiento
+            int offset = target.arrayOffset() + target.position();
+            System.arraycopy(source.array(), source.arrayOffset() + source.position(), target.array(), offset, length);
+            table.translate(target.array(), offset, length);
+            source.position(source.position() + length);
+            target.position(target.position() + length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                char c = source.get();
+                target.put(table.translate(c));
+            }
+        }
+    }
+
+    private static void translate(ByteBuffer source, ByteBuffer target, byte[] table) {
+        if (table == null) {
+            throw new UnsupportedOperationException("Solo se pueden traducir bytes con un alfabeto ASCII");
+        }
+        int length = source.remaining();
+        if (target.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        if (target.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+        CaesarCipher.translate(source, target, table);
+        source.position(source.position() + length);
+        // Si origen y destino son el mismo búfer, su posición ya ha avanzado
+        if (target != source) {
+            target.position(target.position() + length);
+        }
+    }
+
+    /**
+     * Translates the remaining characters of a buffer where they are, by absolute position, and
+     * advances its position once.
+     */
+    private static void translateInPlace(CharBuffer buffer, TranslationTable table) {
+        int position = buffer.position();
+        int length = buffer.remaining();
+        if (buffer.hasArray()) {
+            table.translate(buffer.array(), buffer.arrayOffset() + position, length);
+        } else {
+            for (int i = position; i < position + length; i++) {
+                buffer.put(i, table.translate(buffer.get(i)));
+            }
+        }
+        buffer.position(position + length);
+    }
+
+    private static void translate(CharSequence text, Appendable target, TranslationTable table) throws IOException {
+        int length = text.length();
+        char[] chunk = new char[Math.min(length, CHUNK_SIZE)];
+        for (int start = 0; start < length; start += chunk.length) {
+            int count = Math.min(chunk.length, length - start);
+            if (text instanceof String) {
+                ((String) text).getChars(start, start + count, chunk, 0);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    chunk[i] = text.charAt(start + i);
+                }
+            }
+            table.translate(chunk, 0, count);
+            if (target instanceof StringBuilder) {
+                ((StringBuilder) target).append(chunk, 0, count);
+            } else if (target instanceof Writer) {
+                ((Writer) target).write(chunk, 0, count);
+            } else {
+                target.append(CharBuffer.wrap(chunk, 0, count));
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof ShiftCipher)) {
+            return false;
+        }
+        TranslationTable table = ((ShiftCipher) other).forward;
+        return table.shift == forward.shift && table.alphabet.equals(forward.alphabet);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * forward.alphabet.hashCode() + forward.shift;
+    }
+
+    @Override
+    public String toString() {
+        return "ShiftCipher[clave " + forward.shift + ", alfabeto de " + forward.alphabet.length() + " caracteres]";
+    }
+}
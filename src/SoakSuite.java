@@ -0,0 +1,822 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * The {@code SoakSuite} class checks the whole application on large generated corpora: Spanish and
+ * English text, plain ASCII or full of multi-byte and non-alphabet characters (emoji, CJK, combining
+ * marks, control characters), from a few kilobytes up to many gigabytes. The corpora are written
+ * to disk from fixed seeds, a chunk at a time, so any size can be generated and two runs check
+ * exactly the same bytes.
+ *
+ * <p>Every corpus is encrypted and decrypted back in every {@link Mode}, with keys inside and outside
+ * the alphabet range, including negative ones and {@code Integer.MIN_VALUE}. The round trip must give
+ * the original bytes back, and every mode must produce the same ciphertext, which for small corpora is
+ * also compared with a character by character reference. Brute force must then find the key of each
+ * ciphertext, by frequency on files and compressed files and, for small corpora, by dictionary and by
+ * segments. Each mode reports its throughput, the peak resident memory of the process while it ran and
+ * its garbage collection pauses.</p>
+ *
+ * <p>Run it with {@code scripts/soak.sh}, or {@code java SoakSuite [--quick] [--sizes 1KB,1MB,10GB]
+ * [--filter TEXT] [--dir DIR] [--save FILE] [--baseline FILE] [--tolerance FRACTION] [--max-rss MB]
+ * [--max-pause MS]}. The exit code is 2 if any check failed, 1 if a measurement crossed a limit or got
+ * worse than the baseline by more than the tolerance (20% by default), and 0 otherwise.</p>
+ */
+
+public class SoakSuite {
+
+    private static final long KB = 1024;
+    private static final long MB = 1024 * KB;
+    private static final long GB = 1024 * MB;
+    private static final long[] DEFAULT_SIZES = {KB, MB, 64 * MB};
+    private static final long[] QUICK_SIZES = {KB, MB};
+
+    /**
+     * Keys tried on corpora up to {@link #REFERENCE_LIMIT}: inside, at the edges and outside the range
+     * of the default alphabet, which {@code Validator.isValidKey} rejects but the cipher must wrap.
+     */
+    private static final int[] KEYS = {7, 0, 60, 61, -1, -60, 1000, Integer.MAX_VALUE, Integer.MIN_VALUE};
+
+    /**
+     * Key tried on larger corpora, outside the alphabet range on purpose.
+     */
+    private static final int LARGE_KEY = 1000;
+
+    /**
+     * Name of the check of {@link IncrementalCipher} on input that ends in an unfinished character.
+     */
+    private static final String MALFORMED_TAIL = "roundtrip.incremental/malformed-tail";
+
+    /**
+     * Largest corpus compared with the reference cipher and cracked by dictionary and by segments,
+     * which need the whole text in memory.
+     */
+    private static final long REFERENCE_LIMIT = MB;
+
+    /**
+     * Smallest corpus whose operations are measured; below it fixed costs dominate and the
+     * corpus is only checked.
+     */
+    private static final long MEASURE_LIMIT = MB;
+
+    /**
+     * Largest corpus translated in memory by {@link Mode#MEMORY}.
+     */
+    private static final long MEMORY_LIMIT = 64 * MB;
+
+    /**
+     * Number of characters generated at a time.
+     */
+    private static final int GENERATE_CHUNK = 1 << 20;
+
+    /**
+     * Changes in peak memory and pauses below these are noise, not regressions.
+     */
+    private static final long RSS_SLACK_MB = 32;
+    private static final long PAUSE_SLACK_MS = 20;
+
+    /**
+     * Characters mixed into the multi-byte corpora, none of them in the default alphabet: accents and
+     * inverted marks, typographic symbols, Greek, CJK, emoji outside the BMP, a combining accent,
+     * invisible characters and a control character.
+     */
+    private static final String[] MULTIBYTE_NOISE = {
+            "¿", "¡", "€", "—", "“", "”", "«", "»", "λόγος", "Ωμέγα", "漢字", "東京", "😀", "🔐", "𝔘𝔫𝔦",
+            "e\u0301", "\u00A0", "\u200D", "\uFEFF", "\t", "\u0001", "ñandú", "pingüino"
+    };
+
+    private static final String[] SEPARATORS = {" ", " ", " ", " ", ", ", ". ", "\n", "; ", "? ", "! "};
+
+    /**
+     * A generated corpus: a language and a character mix.
+     */
+    enum Corpus {
+        /** Spanish words with their accents removed. */
+        SPANISH_ASCII(Language.SPANISH, false),
+        /** Spanish words with symbols, emoji and other scripts in between. */
+        SPANISH_MULTIBYTE(Language.SPANISH, true),
+        /** English words. */
+        ENGLISH_ASCII(Language.ENGLISH, false),
+        /** English words with symbols, emoji and other scripts in between. */
+        ENGLISH_MULTIBYTE(Language.ENGLISH, true);
+
+        final Language language;
+        final boolean multibyte;
+
+        Corpus(Language language, boolean multibyte) {
+            this.language = language;
+            this.multibyte = multibyte;
+        }
+
+        String label() {
+            return language.getCode() + "-" + (multibyte ? "multibyte" : "ascii");
+        }
+
+        /**
+         * Writes at most {@code size} bytes of UTF-8 text generated from a seed.
+         */
+        void write(Path path, long size, long seed) throws IOException {
+            String[] words = language.getDictionaryWords().clone();
+            if (!multibyte) {
+                for (int i = 0; i < words.length; i++) {
+                    words[i] = Normalizer.normalize(words[i], Normalizer.Form.NFD).replaceAll("[^\\p{ASCII}]", "");
+                }
+            }
+            Random random = new Random(seed);
+            StringBuilder text = new StringBuilder(GENERATE_CHUNK + 64);
+            long written = 0;
+            try (OutputStream out = Files.newOutputStream(path)) {
+                while (written < size) {
+                    text.setLength(0);
+                    while (text.length() < GENERATE_CHUNK) {
+                        if (multibyte && random.nextInt(4) == 0) {
+                            text.append(MULTIBYTE_NOISE[random.nextInt(MULTIBYTE_NOISE.length)]);
+                        }
+                        String word = words[random.nextInt(words.length)];
+                        text.append(random.nextInt(8) == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+                        text.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+                    }
+                    byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+                    if (written + bytes.length > size) {
+                        // El último bloque se corta en un límite de carácter
+                        bytes = prefix(text, size - written).getBytes(StandardCharsets.UTF_8);
+                        out.write(bytes);
+                        break;
+                    }
+                    out.write(bytes);
+                    written += bytes.length;
+                }
+            }
+        }
+
+        private static String prefix(CharSequence text, long maxBytes) {
+            long bytes = 0;
+            int end = 0;
+            while (end < text.length()) {
+                int codePoint = Character.codePointAt(text, end);
+                int length = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+                if (bytes + length > maxBytes) {
+                    break;
+                }
+                bytes += length;
+                end += Character.charCount(codePoint);
+            }
+            return text.subSequence(0, end).toString();
+        }
+    }
+
+    /**
+     * A way of encrypting and decrypting a file.
+     */
+    enum Mode {
+        /** {@code CaesarCipher.encrypt} and {@code decrypt} on the whole text as a string. */
+        MEMORY,
+        /** {@code FileManager} with {@link FileManager.Mode#STREAM}. */
+        STREAM,
+        /** {@code FileManager} with {@link FileManager.Mode#MMAP} on one thread. */
+        MMAP,
+        /** {@code FileManager} with {@link FileManager.Mode#AUTO}. */
+        AUTO,
+        /** {@code FileManager} with {@link FileManager.Mode#MMAP} on every processor. */
+        PARALLEL,
+        /** Gzip ciphertext through a {@link CompressionPipeline}. */
+        GZIP,
+        /** {@link IncrementalCipher} on a file that grows from half its size to the whole. */
+        INCREMENTAL;
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * The measurements of one operation.
+     */
+    static final class Result {
+        final String name;
+        final double megabytesPerSecond;
+        final long peakRssMegabytes;
+        final long gcCount;
+        final long maxPauseMillis;
+        final long totalPauseMillis;
+
+        Result(String name, double megabytesPerSecond, long peakRssMegabytes, long gcCount, long maxPauseMillis, long totalPauseMillis) {
+            this.name = name;
+            this.megabytesPerSecond = megabytesPerSecond;
+            this.peakRssMegabytes = peakRssMegabytes;
+            this.gcCount = gcCount;
+            this.maxPauseMillis = maxPauseMillis;
+            this.totalPauseMillis = totalPauseMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-40s %9.1f MB/s %7d MB RSS %5d GC %6d ms máx. %7d ms total",
+                    name, megabytesPerSecond, peakRssMegabytes, gcCount, maxPauseMillis, totalPauseMillis);
+        }
+    }
+
+    private static final AtomicLong PAUSES = new AtomicLong();
+    private static final AtomicLong PAUSE_MILLIS = new AtomicLong();
+    private static final AtomicLong MAX_PAUSE_MILLIS = new AtomicLong();
+
+    private final long[] sizes;
+    private final String filter;
+    private final Path directory;
+    private final ParallelCipher parallel = new ParallelCipher(Runtime.getRuntime().availableProcessors());
+    private final List<Result> results = new ArrayList<>();
+    private final List<String> failures = new ArrayList<>();
+    private boolean rssResettable = true;
+
+    private SoakSuite(long[] sizes, String filter, Path directory) {
+        this.sizes = sizes;
+        this.filter = filter;
+        this.directory = directory;
+    }
+
+    /**
+     * The main method that runs the suite.
+     *
+     * @param args the options described in the class documentation
+     * @throws IOException if the corpora or the baseline cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        long[] sizes = DEFAULT_SIZES;
+        String filter = "";
+        Path directory = null;
+        Path save = null;
+        Path baseline = null;
+        double tolerance = 0.20;
+        long maxRss = Long.MAX_VALUE;
+        long maxPause = Long.MAX_VALUE;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--quick":
+                    sizes = QUICK_SIZES;
+                    break;
+                case "--sizes":
+                    sizes = parseSizes(args[++i]);
+                    break;
+                case "--filter":
+                    filter = args[++i];
+                    break;
+                case "--dir":
+                    directory = Paths.get(args[++i]);
+                    break;
+                case "--save":
+                    save = Paths.get(args[++i]);
+                    break;
+                case "--baseline":
+                    baseline = Paths.get(args[++i]);
+                    break;
+                case "--tolerance":
+                    tolerance = Double.parseDouble(args[++i]);
+                    break;
+                case "--max-rss":
+                    maxRss = Long.parseLong(args[++i]);
+                    break;
+                case "--max-pause":
+                    maxPause = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+        boolean temporary = directory == null;
+        directory = temporary ? Files.createTempDirectory("soak") : Files.createDirectories(directory);
+        listenToPauses();
+        System.out.printf("Java %s, %d procesadores, %d MB de heap máximo, alfabeto de %d caracteres, corpus en %s%n",
+                System.getProperty("java.version"), Runtime.getRuntime().availableProcessors(),
+                Runtime.getRuntime().maxMemory() / MB, CaesarCipher.symbolCount(), directory);
+        SoakSuite suite = new SoakSuite(sizes, filter, directory);
+        try {
+            suite.run();
+        } finally {
+            suite.parallel.close();
+            if (temporary) {
+                try (Stream<Path> files = Files.list(directory)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(directory);
+            }
+        }
+
+        if (save != null) {
+            suite.save(save);
+        }
+        int exceeded = suite.checkLimits(maxRss, maxPause);
+        if (baseline != null) {
+            exceeded += suite.compare(baseline, tolerance);
+        }
+        if (!suite.failures.isEmpty()) {
+            System.out.println(suite.failures.size() + " comprobaciones fallidas:");
+            suite.failures.forEach(failure -> System.out.println("FALLO  " + failure));
+            System.exit(2);
+        }
+        System.out.println("Todas las comprobaciones son correctas");
+        if (exceeded > 0) {
+            System.exit(1);
+        }
+    }
+
+    private void run() throws IOException {
+        if (matches(MALFORMED_TAIL)) {
+            checkMalformedTail();
+        }
+        for (long size : sizes) {
+            for (Corpus corpus : Corpus.values()) {
+                String suffix = "/" + corpus.label() + "/" + sizeLabel(size);
+                if (!matchesAny(suffix)) {
+                    continue;
+                }
+                // Entrada, cifrado y descifrado a la vez, con margen para el manifiesto y el gzip
+                long needed = size * 3 + 64 * MB;
+                if (Files.getFileStore(directory).getUsableSpace() < needed) {
+                    System.out.println("Sin espacio para " + suffix + ": se necesitan " + needed / MB + " MB");
+                    continue;
+                }
+                Path input = directory.resolve(corpus.label() + "-" + sizeLabel(size) + ".txt");
+                long start = System.nanoTime();
+                corpus.write(input, size, 42L + corpus.ordinal());
+                System.out.printf("Corpus %s: %d bytes generados en %.1f s%n", suffix.substring(1), Files.size(input),
+                        (System.nanoTime() - start) / 1e9);
+                try {
+                    check(corpus, input, size, suffix);
+                } finally {
+                    Files.delete(input);
+                }
+            }
+        }
+    }
+
+    private void check(Corpus corpus, Path input, long size, String suffix) throws IOException {
+        String original = digest(input);
+        String text = size <= REFERENCE_LIMIT ? Files.readString(input) : null;
+        int[] keys = size <= REFERENCE_LIMIT ? KEYS : new int[] {LARGE_KEY};
+        Path encrypted = directory.resolve("cifrado.txt");
+        Path decrypted = directory.resolve("descifrado.txt");
+        for (int k = 0; k < keys.length; k++) {
+            int key = keys[k];
+            String expected = text != null ? digest(reference(text, key).getBytes(StandardCharsets.UTF_8)) : null;
+            for (Mode mode : Mode.values()) {
+                String name = "roundtrip." + mode.label() + suffix;
+                if (!matches(name) || (mode == Mode.MEMORY && size > MEMORY_LIMIT)) {
+                    continue;
+                }
+                String where = name + " (clave " + key + ")";
+                Path target = mode == Mode.GZIP ? directory.resolve("cifrado.txt.gz") : encrypted;
+                try {
+                    startMeasure();
+                    long nanos = roundTrip(mode, input, target, decrypted, key);
+                    // Solo la primera clave se mide: las demás repiten el mismo trabajo
+                    if (k == 0 && size >= MEASURE_LIMIT) {
+                        record(name, 2.0 * Files.size(input), nanos);
+                    }
+                    String ciphertext = digest(target);
+                    if (expected == null) {
+                        expected = ciphertext;
+                    } else if (!expected.equals(ciphertext)) {
+                        fail(where, "el texto cifrado no coincide con el de referencia");
+                    }
+                    if (!original.equals(digest(decrypted))) {
+                        fail(where, "el descifrado no devuelve el texto original");
+                    }
+                } catch (IOException | RuntimeException e) {
+                    fail(where, e.toString());
+                } finally {
+                    Files.deleteIfExists(target);
+                    Files.deleteIfExists(IncrementalCipher.manifestFor(target));
+                    Files.deleteIfExists(decrypted);
+                    Files.deleteIfExists(IncrementalCipher.manifestFor(decrypted));
+                    Files.deleteIfExists(directory.resolve("creciente.txt"));
+                }
+            }
+            crack(corpus, input, text, key, k == 0 && size >= MEASURE_LIMIT, suffix);
+        }
+    }
+
+    /**
+     * Checks that {@link IncrementalCipher} ends an input cut in the middle of a UTF-8 character as
+     * the other modes do, both when the character is never finished and when later bytes finish it.
+     */
+    private void checkMalformedTail() throws IOException {
+        byte[] text = "Canción del pirata: café, árbol y ñandú. ".repeat(2000).getBytes(StandardCharsets.UTF_8);
+        Path growing = directory.resolve("creciente.txt");
+        Path incremental = directory.resolve("incremental.txt");
+        Path reference = directory.resolve("referencia.txt");
+        IncrementalCipher cipher = new IncrementalCipher(ParallelCipher.SEQUENTIAL);
+        try {
+            // Un byte inicial de dos suelto al final, que nunca se completa
+            Files.write(growing, text);
+            Files.write(growing, new byte[] {(byte) 0xE9}, StandardOpenOption.APPEND);
+            cipher.update(growing, incremental, LARGE_KEY, true);
+            if (cipher.update(growing, incremental, LARGE_KEY, true).getOutcome() != IncrementalCipher.Outcome.UNCHANGED) {
+                fail(MALFORMED_TAIL, "una segunda ejecución sin cambios ha vuelto a escribir la salida");
+            }
+            compareMalformedTail(growing, incremental, reference, "con un carácter que no se completa");
+            // El mismo carácter partido entre dos ejecuciones
+            Files.write(growing, text);
+            Files.write(growing, new byte[] {(byte) 0xC3}, StandardOpenOption.APPEND);
+            cipher.update(growing, incremental, LARGE_KEY, true);
+            compareMalformedTail(growing, incremental, reference, "con un carácter a medias");
+            Files.write(growing, new byte[] {(byte) 0xA9, 'x'}, StandardOpenOption.APPEND);
+            cipher.update(growing, incremental, LARGE_KEY, true);
+            compareMalformedTail(growing, incremental, reference, "con un carácter completado después");
+        } catch (IOException | RuntimeException e) {
+            fail(MALFORMED_TAIL, e.toString());
+        } finally {
+            Files.deleteIfExists(growing);
+            Files.deleteIfExists(incremental);
+            Files.deleteIfExists(IncrementalCipher.manifestFor(incremental));
+            Files.deleteIfExists(reference);
+        }
+    }
+
+    private void compareMalformedTail(Path input, Path incremental, Path reference, String where) throws IOException {
+        FileManager.transform(input, reference, LARGE_KEY, true, ParallelCipher.SEQUENTIAL);
+        if (!digest(reference).equals(digest(incremental))) {
+            fail(MALFORMED_TAIL + " (" + where + ")", "la salida incremental no coincide con la del modo normal");
+        }
+    }
+
+    /**
+     * Encrypts a file and decrypts it back in a mode.
+     *
+     * @return the nanoseconds spent encrypting and decrypting
+     */
+    private long roundTrip(Mode mode, Path input, Path encrypted, Path decrypted, int key) throws IOException {
+        long start = System.nanoTime();
+        switch (mode) {
+            case MEMORY:
+                Files.writeString(encrypted, CaesarCipher.encrypt(Files.readString(input), key));
+                Files.writeString(decrypted, CaesarCipher.decrypt(Files.readString(encrypted), key));
+                break;
+            case STREAM:
+            case MMAP:
+            case AUTO:
+                FileManager.Mode fileMode = FileManager.Mode.valueOf(mode.name());
+                FileManager.transform(input, encrypted, key, true, ParallelCipher.SEQUENTIAL, fileMode);
+                FileManager.transform(encrypted, decrypted, CaesarCipher.inverse(key), false, ParallelCipher.SEQUENTIAL, fileMode);
+                break;
+            case PARALLEL:
+                FileManager.transform(input, encrypted, key, true, parallel, FileManager.Mode.MMAP);
+                FileManager.transform(encrypted, decrypted, CaesarCipher.inverse(key), false, parallel, FileManager.Mode.MMAP);
+                break;
+            case GZIP:
+                FileManager.transform(input, encrypted, key, true, ParallelCipher.SEQUENTIAL);
+                FileManager.transform(encrypted, decrypted, CaesarCipher.inverse(key), false, ParallelCipher.SEQUENTIAL);
+                break;
+            default:
+                // La mitad del archivo puede acabar a mitad de un carácter: el modo incremental lo espera
+                Path growing = directory.resolve("creciente.txt");
+                long half = Files.size(input) / 2;
+                copy(input, growing, 0, half);
+                IncrementalCipher incremental = new IncrementalCipher(ParallelCipher.SEQUENTIAL);
+                long copied = System.nanoTime();
+                incremental.update(growing, encrypted, key, true);
+                long grown = System.nanoTime();
+                copy(input, growing, half, Files.size(input));
+                // Las copias que hacen crecer el archivo no cuentan en la medida
+                start += copied - start + System.nanoTime() - grown;
+                incremental.update(growing, encrypted, key, true);
+                incremental.update(encrypted, decrypted, CaesarCipher.inverse(key), false);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Checks that brute force finds the key of the corpus encrypted with {@code key}.
+     */
+    private void crack(Corpus corpus, Path input, String text, int key, boolean measure, String suffix) throws IOException {
+        int expected = Math.floorMod(key, CaesarCipher.symbolCount());
+        BruteForce bruteForce = new BruteForce(new CaesarCipher(), corpus.language);
+        Path encrypted = directory.resolve("cifrado.txt");
+        Path compressed = directory.resolve("cifrado.txt.gz");
+        String where = suffix.substring(1) + " (clave " + key + ")";
+        try {
+            FileManager.transform(input, encrypted, key, true, ParallelCipher.SEQUENTIAL);
+            if (matches("crack.frequency" + suffix)) {
+                startMeasure();
+                long start = System.nanoTime();
+                int found = bruteForce.findKey(encrypted);
+                if (measure) {
+                    record("crack.frequency" + suffix, Files.size(encrypted), System.nanoTime() - start);
+                }
+                expectKey("crack.frequency/" + where, expected, found);
+            }
+            if (matches("crack.gzip" + suffix)) {
+                FileManager.transform(encrypted, compressed, 0, true, ParallelCipher.SEQUENTIAL);
+                expectKey("crack.gzip/" + where, expected, bruteForce.findKey(compressed));
+            }
+            if (text != null && matches("crack.dictionary" + suffix)) {
+                String ciphertext = CaesarCipher.encrypt(text, key);
+                CrackResult result = bruteForce.bruteForceSampled(ciphertext, BruteForce.DEFAULT_CONFIDENCE);
+                expectKey("crack.dictionary/" + where, expected, result.getKey());
+            }
+            if (text != null && matches("crack.segments" + suffix)) {
+                StringBuilder plaintext = new StringBuilder(text.length());
+                List<SegmentAnalyzer.Segment> segments;
+                try (Reader reader = Files.newBufferedReader(encrypted); Writer writer = new StringBuilderWriter(plaintext)) {
+                    segments = new SegmentAnalyzer(bruteForce).crack(reader, writer);
+                }
+                for (SegmentAnalyzer.Segment segment : segments) {
+                    expectKey("crack.segments/" + where + " " + segment, expected, segment.getKey());
+                }
+                if (!plaintext.toString().equals(text)) {
+                    fail("crack.segments/" + where, "el texto descifrado por partes no es el original");
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            fail("crack/" + where, e.toString());
+        } finally {
+            Files.deleteIfExists(encrypted);
+            Files.deleteIfExists(compressed);
+        }
+    }
+
+    private void expectKey(String where, int expected, int found) {
+        if (found != expected) {
+            fail(where, "clave encontrada " + found + ", esperada " + expected);
+        }
+    }
+
+    private void fail(String where, String reason) {
+        failures.add(where + ": " + reason);
+        System.out.println("FALLO  " + where + ": " + reason);
+    }
+
+    private boolean matches(String name) {
+        return name.contains(filter);
+    }
+
+    /**
+     * Checks whether the filter selects any check of a corpus, so it has to be generated.
+     */
+    private boolean matchesAny(String suffix) {
+        for (Mode mode : Mode.values()) {
+            if (matches("roundtrip." + mode.label() + suffix)) {
+                return true;
+            }
+        }
+        for (String method : new String[] {"frequency", "gzip", "dictionary", "segments"}) {
+            if (matches("crack." + method + suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The cipher applied one character at a time, straight from the alphabet definition.
+     */
+    private static String reference(String text, int key) {
+        Alphabet alphabet = Alphabet.DEFAULT;
+        int shift = Math.floorMod(key, alphabet.length());
+        StringBuilder result = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int index = alphabet.indexOf(c);
+            result.append(index == -1 ? c : alphabet.charAt((index + shift) % alphabet.length()));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Summarizes the decompressed content of a file as its length and CRC-32C.
+     */
+    private static String digest(Path path) throws IOException {
+        CRC32C crc = new CRC32C();
+        long length = 0;
+        byte[] buffer = new byte[(int) MB];
+        try (InputStream in = CompressionPipeline.openInput(path)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+                length += read;
+            }
+        }
+        return length + "/" + Long.toHexString(crc.getValue());
+    }
+
+    private static String digest(byte[] bytes) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, bytes.length);
+        return bytes.length + "/" + Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * Copies the bytes of {@code source} from {@code start} to {@code end}, appending them to {@code target}.
+     */
+    private static void copy(Path source, Path target, long start, long end) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            for (long position = start; position < end; ) {
+                position += in.transferTo(position, end - position, out);
+            }
+        }
+    }
+
+    /**
+     * Resets the peak resident memory of the process and the pause counters before an operation.
+     */
+    private void startMeasure() {
+        System.gc();
+        if (rssResettable) {
+            // Escribir 5 en clear_refs devuelve VmHWM al uso actual (Linux 4.0 o posterior)
+            try {
+                Files.write(Paths.get("/proc/self/clear_refs"), "5".getBytes(StandardCharsets.US_ASCII));
+            } catch (IOException | UnsupportedOperationException | SecurityException e) {
+                rssResettable = false;
+                System.out.println("No se puede reiniciar el pico de memoria: se informa del pico del proceso");
+            }
+        }
+        PAUSES.set(0);
+        PAUSE_MILLIS.set(0);
+        MAX_PAUSE_MILLIS.set(0);
+    }
+
+    private void record(String name, double bytes, long nanos) {
+        Result result = new Result(name, bytes / MB / (nanos / 1e9), peakRssMegabytes(), PAUSES.get(),
+                MAX_PAUSE_MILLIS.get(), PAUSE_MILLIS.get());
+        results.add(result);
+        System.out.println(result);
+    }
+
+    /**
+     * Reads the peak resident memory of the process from {@code /proc/self/status}.
+     *
+     * @return the peak in megabytes, or {@code -1} if the system does not report it
+     */
+    private static long peakRssMegabytes() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) / KB;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Fuera de Linux no hay /proc
+        }
+        return -1;
+    }
+
+    /**
+     * Counts the stop-the-world pauses of every collector as they end. Concurrent cycles run beside
+     * the application and are left out.
+     */
+    private static void listenToPauses() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!(collector instanceof NotificationEmitter)) {
+                continue;
+            }
+            ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                    return;
+                }
+                GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                if (info.getGcName().contains("Concurrent") || info.getGcCause().equals("System.gc()")) {
+                    return;
+                }
+                long millis = info.getGcInfo().getDuration();
+                PAUSES.incrementAndGet();
+                PAUSE_MILLIS.addAndGet(millis);
+                MAX_PAUSE_MILLIS.accumulateAndGet(millis, Math::max);
+            }, null, null);
+        }
+    }
+
+    private static long[] parseSizes(String list) {
+        String[] parts = list.split(",");
+        long[] sizes = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i].trim().toUpperCase(Locale.ROOT);
+            long unit = part.endsWith("GB") ? GB : part.endsWith("MB") ? MB : part.endsWith("KB") ? KB : 1;
+            String number = unit == 1 ? part : part.substring(0, part.length() - 2);
+            sizes[i] = Long.parseLong(number) * unit;
+        }
+        return sizes;
+    }
+
+    private static String sizeLabel(long size) {
+        return size >= GB && size % GB == 0 ? size / GB + "GB" : size >= MB && size % MB == 0 ? size / MB + "MB"
+                : size >= KB && size % KB == 0 ? size / KB + "KB" : size + "B";
+    }
+
+    private int checkLimits(long maxRss, long maxPause) {
+        int exceeded = 0;
+        for (Result result : results) {
+            if (result.peakRssMegabytes > maxRss) {
+                exceeded++;
+                System.out.printf("LÍMITE  %-40s %d MB de memoria residente (máximo %d)%n", result.name, result.peakRssMegabytes, maxRss);
+            }
+            if (result.maxPauseMillis > maxPause) {
+                exceeded++;
+                System.out.printf("LÍMITE  %-40s pausa de %d ms (máximo %d)%n", result.name, result.maxPauseMillis, maxPause);
+            }
+        }
+        return exceeded;
+    }
+
+    private void save(Path path) throws IOException {
+        Properties scores = new Properties();
+        for (Result result : results) {
+            scores.setProperty(result.name + ".mbps", Double.toString(result.megabytesPerSecond));
+            scores.setProperty(result.name + ".rss", Long.toString(result.peakRssMegabytes));
+            scores.setProperty(result.name + ".pausa", Long.toString(result.maxPauseMillis));
+        }
+        try (OutputStream out = Files.newOutputStream(path)) {
+            scores.store(out, "Medidas de SoakSuite");
+        }
+        System.out.println("Resultados guardados en " + path);
+    }
+
+    /**
+     * Compares the results with a saved baseline and prints every measurement that got worse by more
+     * than the tolerance: lower throughput, or higher peak memory or longest pause, the last two only
+     * when they also grew more than {@link #RSS_SLACK_MB} and {@link #PAUSE_SLACK_MS}.
+     *
+     * @return the number of regressions
+     */
+    private int compare(Path path, double tolerance) throws IOException {
+        Properties baseline = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            baseline.load(in);
+        }
+        int regressions = 0;
+        for (Result result : results) {
+            String throughput = baseline.getProperty(result.name + ".mbps");
+            if (throughput != null) {
+                double previous = Double.parseDouble(throughput);
+                if ((previous - result.megabytesPerSecond) / previous > tolerance) {
+                    regressions++;
+                    System.out.printf("REGRESIÓN  %-40s %.1f -> %.1f MB/s%n", result.name, previous, result.megabytesPerSecond);
+                }
+            }
+            String rss = baseline.getProperty(result.name + ".rss");
+            if (rss != null && worse(Long.parseLong(rss), result.peakRssMegabytes, tolerance, RSS_SLACK_MB)) {
+                regressions++;
+                System.out.printf("REGRESIÓN  %-40s %s -> %d MB de memoria residente%n", result.name, rss, result.peakRssMegabytes);
+            }
+            String pause = baseline.getProperty(result.name + ".pausa");
+            if (pause != null && worse(Long.parseLong(pause), result.maxPauseMillis, tolerance, PAUSE_SLACK_MS)) {
+                regressions++;
+                System.out.printf("REGRESIÓN  %-40s pausa de %s -> %d ms%n", result.name, pause, result.maxPauseMillis);
+            }
+        }
+        System.out.println(regressions == 0 ? "Sin regresiones respecto a " + path : regressions + " regresiones respecto a " + path);
+        return regressions;
+    }
+
+    private static boolean worse(long previous, long current, double tolerance, long slack) {
+        return current - previous > slack && current > previous * (1 + tolerance);
+    }
+
+    /**
+     * Collects what is written into a {@code StringBuilder}, without the synchronization of
+     * {@code StringWriter}.
+     */
+    private static final class StringBuilderWriter extends Writer {
+        private final StringBuilder builder;
+
+        StringBuilderWriter(StringBuilder builder) {
+            this.builder = builder;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            builder.append(buffer, offset, length);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,75 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * The {@code StartupTraining} class runs the usual command-line operations once on small temporary
+ * files, so the classes they load can be recorded in an AppCDS archive with
+ * {@code -XX:ArchiveClassesAtExit}; see {@code scripts/build-cds.sh}. Later runs map those classes
+ * from the archive instead of loading and verifying them again. Nothing outside the temporary
+ * directory is touched.
+ */
+
+public class StartupTraining {
+
+    private static final String SAMPLE = "El veloz murciélago hindú comía feliz cardillo y kiwi. "
+            + "La cigüeña tocaba el saxofón detrás del palenque de paja, "
+            + "mientras el pingüino, ¿qué hacía? ¡Nada! Solo miraba el mar.\n";
+
+    /**
+     * Runs the training operations.
+     *
+     * @param args ignored
+     * @throws IOException if the temporary files cannot be created
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("cripto-cds");
+        System.setProperty("cripto.registro", directory.resolve("registro.jsonl").toString());
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        try {
+            Path plain = directory.resolve("claro.txt");
+            Path encrypted = directory.resolve("cifrado.txt");
+            Path decrypted = directory.resolve("descifrado.txt");
+            Files.write(plain, SAMPLE.repeat(16).getBytes(StandardCharsets.UTF_8));
+            // Los resultados de las operaciones no interesan, solo las clases que cargan
+            PrintStream discard = new PrintStream(PrintStream.nullOutputStream());
+            System.setOut(discard);
+            System.setErr(discard);
+            run(err, "encrypt", "--in", plain, "--out", encrypted, "--key", "7");
+            run(err, "encrypt", "--in", plain, "--out", encrypted, "--key", "7", "--mode", "stream");
+            run(err, "decrypt", "--in", encrypted, "--out", decrypted);
+            run(err, "crack", "--in", encrypted, "--out", decrypted);
+            run(err, "crack", "--in", encrypted, "--out", decrypted, "--method", "dictionary");
+            run(err, "crack", "--in", encrypted, "--out", decrypted, "--method", "segments");
+        } finally {
+            System.setOut(out);
+            System.setErr(err);
+            try (Stream<Path> files = Files.list(directory)) {
+                files.forEach(file -> {
+                    try {
+                        Files.delete(file);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static void run(PrintStream err, Object... arguments) {
+        String[] args = new String[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            args[i] = arguments[i].toString();
+        }
+        int code = CommandLine.run(args);
+        if (code != CommandLine.EXIT_OK) {
+            err.println("La operación de entrenamiento " + args[0] + " terminó con el código " + code);
+        }
+    }
+}
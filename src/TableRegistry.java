@@ -0,0 +1,163 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code TableRegistry} class caches the translation tables of every alphabet and shift in use,
+ * so a key is built once and then shared by all threads. Lookups do not lock. The number of cached
+ * tables is bounded: when a new table would exceed the capacity, the tables of the alphabet used
+ * least recently are dropped. The tables of {@link Alphabet#DEFAULT} are never dropped.
+ */
+
+final class TableRegistry {
+
+    /**
+     * Number of tables kept when the {@code cripto.tablas.max} system property is not set.
+     */
+    static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * The registry shared by the whole application.
+     */
+    static final TableRegistry SHARED = new TableRegistry(Integer.getInteger("cripto.tablas.max", DEFAULT_CAPACITY));
+
+    /**
+     * The tables of one alphabet, indexed by shift, and when they were last used. The entry counts
+     * its own tables; once it is dropped from the registry the count is marked dead, so a table
+     * stored in it afterwards is not counted in the size of the registry.
+     */
+    private static final class Entry {
+        private static final int DEAD = -1;
+
+        final AtomicReferenceArray<TranslationTable> tables;
+        final AtomicInteger count = new AtomicInteger();
+        volatile long lastUse;
+
+        Entry(Alphabet alphabet) {
+            tables = new AtomicReferenceArray<>(alphabet.length());
+        }
+
+        /**
+         * Counts a table just stored in this entry.
+         *
+         * @return {@code false} if the entry has been dropped from the registry
+         */
+        boolean add() {
+            int current;
+            do {
+                current = count.get();
+                if (current == DEAD) {
+                    return false;
+                }
+            } while (!count.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        /**
+         * Marks this entry as dropped.
+         *
+         * @return the number of tables counted until then
+         */
+        int kill() {
+            return count.getAndSet(DEAD);
+        }
+    }
+
+    private final int capacity;
+    private final Map<Alphabet, Entry> alphabets = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder builds = new LongAdder();
+
+    /**
+     * Constructs an empty registry.
+     *
+     * @param capacity the number of tables to keep
+     * @throws IllegalArgumentException if {@code capacity} is less than 1
+     */
+    TableRegistry(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("La capacidad del registro debe ser mayor que cero");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets the tables that shift an alphabet by a key, building them on first use. Negative keys
+     * and keys larger than the alphabet wrap around.
+     *
+     * @param alphabet the alphabet to shift
+     * @param key the number of positions to shift forward
+     * @return the shared tables for that alphabet and shift
+     */
+    TranslationTable get(Alphabet alphabet, int key) {
+        int shift = Math.floorMod(key, alphabet.length());
+        TranslationTable built = null;
+        while (true) {
+            Entry entry = alphabets.get(alphabet);
+            if (entry == null) {
+                entry = alphabets.computeIfAbsent(alphabet, Entry::new);
+            }
+            entry.lastUse = System.nanoTime();
+            TranslationTable table = entry.tables.get(shift);
+            if (table != null) {
+                return table;
+            }
+            if (built == null) {
+                built = TranslationTable.build(alphabet, shift);
+            }
+            if (!entry.tables.compareAndSet(shift, null, built)) {
+                // Otro hilo la construyó a la vez: se usa la suya
+                return entry.tables.get(shift);
+            }
+            if (entry.add()) {
+                builds.increment();
+                if (size.incrementAndGet() > capacity) {
+                    evict(alphabet);
+                }
+                return built;
+            }
+            // La entrada se descartó mientras tanto: se guarda en la nueva
+        }
+    }
+
+    /**
+     * Drops the tables of the alphabet used least recently, other than the default one and the one
+     * that has just been looked up.
+     */
+    private void evict(Alphabet current) {
+        Alphabet oldest = null;
+        long oldestUse = Long.MAX_VALUE;
+        for (Map.Entry<Alphabet, Entry> candidate : alphabets.entrySet()) {
+            Alphabet alphabet = candidate.getKey();
+            if (!alphabet.equals(Alphabet.DEFAULT) && !alphabet.equals(current) && candidate.getValue().lastUse < oldestUse) {
+                oldest = alphabet;
+                oldestUse = candidate.getValue().lastUse;
+            }
+        }
+        Entry removed = oldest == null ? null : alphabets.remove(oldest);
+        if (removed != null) {
+            size.addAndGet(-removed.kill());
+        }
+    }
+
+    /**
+     * Gets the number of tables currently cached.
+     *
+     * @return the number of cached tables
+     */
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * Gets how many tables have been built since the registry was created. A value that keeps growing
+     * means the capacity is too small for the keys in use.
+     *
+     * @return the number of tables built
+     */
+    long builds() {
+        return builds.sum();
+    }
+}
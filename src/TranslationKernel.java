@@ -0,0 +1,56 @@
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code TranslationKernel} interface is a routine that applies the ASCII translation tables to
+ * whole buffers at once. When the {@code jdk.incubator.vector} module is present and the
+ * {@code VectorTranslationKernel} class has been compiled, {@link #VECTOR} holds a SIMD implementation
+ * that the translation loops use for large enough inputs; otherwise it is {@code null} and the scalar
+ * loops do all the work. Setting the {@code cripto.vector} system property to {@code false} turns the
+ * vector kernel off.
+ */
+
+interface TranslationKernel {
+
+    /**
+     * Smallest number of characters or bytes handed to the kernel; shorter inputs stay on the scalar loops.
+     */
+    int MIN_LENGTH = 256;
+
+    /**
+     * The vector kernel, or {@code null} if it is not available.
+     */
+    TranslationKernel VECTOR = load();
+
+    /**
+     * Translates a range of a character buffer in place. Characters from 128 up are left unchanged.
+     *
+     * @param buffer the characters to translate
+     * @param offset the first position to translate
+     * @param length the number of characters to translate
+     * @param table the 128-entry table of an ASCII alphabet
+     */
+    void translate(char[] buffer, int offset, int length, char[] table);
+
+    /**
+     * Translates the remaining bytes of {@code source} into {@code target}, like
+     * {@link CaesarCipher#translate(ByteBuffer, ByteBuffer, byte[])}.
+     *
+     * @param source the bytes to translate
+     * @param target the buffer receiving the translated bytes
+     * @param table the 256-entry byte table
+     */
+    void translate(ByteBuffer source, ByteBuffer target, byte[] table);
+
+    private static TranslationKernel load() {
+        if (!Boolean.parseBoolean(System.getProperty("cripto.vector", "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (TranslationKernel) Class.forName("VectorTranslationKernel").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Sin la clase compilada o con un vector no soportado se usan los bucles escalares
+            return null;
+        }
+    }
+}
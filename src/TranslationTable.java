@@ -0,0 +1,119 @@
+/**
+ * The {@code TranslationTable} class holds the compiled translation of one alphabet and shift: the
+ * replacement of every character in the dense range of the alphabet, the replacement of the characters
+ * in its hash, and for ASCII alphabets the replacement of every byte. Bytes from 128 to 255 map to
+ * themselves, so the byte table can be applied directly to UTF-8 text.
+ * Tables are built by {@link TableRegistry} and must not be modified.
+ */
+
+final class TranslationTable {
+
+    final Alphabet alphabet;
+    final int shift;
+
+    /**
+     * Replacement of every character below {@code chars.length}; characters outside the alphabet map to themselves.
+     */
+    final char[] chars;
+
+    /**
+     * Replacement of the character in the same slot of {@link Alphabet#sparseKeys}, or {@code null}
+     * if the alphabet has no characters outside the dense range.
+     */
+    final char[] sparseChars;
+
+    /**
+     * Replacement of every byte, or {@code null} if the alphabet is not ASCII.
+     */
+    final byte[] bytes;
+
+    private TranslationTable(Alphabet alphabet, int shift, char[] chars, char[] sparseChars, byte[] bytes) {
+        this.alphabet = alphabet;
+        this.shift = shift;
+        this.chars = chars;
+        this.sparseChars = sparseChars;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Builds the tables that move every alphabet character {@code shift} positions forward.
+     *
+     * @param alphabet the alphabet to shift
+     * @param shift the number of positions, from 0 to {@code alphabet.length() - 1}
+     * @return the new tables
+     */
+    static TranslationTable build(Alphabet alphabet, int shift) {
+        int length = alphabet.length();
+        char[] chars = new char[alphabet.index.length];
+        for (int c = 0; c < chars.length; c++) {
+            int index = alphabet.index[c];
+            chars[c] = index == -1 ? (char) c : alphabet.charAt((index + shift) % length);
+        }
+        char[] sparseChars = null;
+        if (alphabet.sparseKeys != null) {
+            sparseChars = new char[alphabet.sparseKeys.length];
+            for (int slot = 0; slot < sparseChars.length; slot++) {
+                if (alphabet.sparseKeys[slot] != 0) {
+                    sparseChars[slot] = alphabet.charAt((alphabet.sparseIndex[slot] + shift) % length);
+                }
+            }
+        }
+        byte[] bytes = null;
+        if (alphabet.isAscii()) {
+            bytes = new byte[256];
+            for (int b = 0; b < bytes.length; b++) {
+                bytes[b] = b < chars.length ? (byte) chars[b] : (byte) b;
+            }
+        }
+        return new TranslationTable(alphabet, shift, chars, sparseChars, bytes);
+    }
+
+    /**
+     * Translates a single character.
+     *
+     * @param c the character to translate
+     * @return the shifted character, or {@code c} itself if it is not part of the alphabet
+     */
+    char translate(char c) {
+        if (c < chars.length) {
+            return chars[c];
+        }
+        int slot = alphabet.sparseSlot(c);
+        return slot == -1 ? c : sparseChars[slot];
+    }
+
+    /**
+     * Translates a range of a character buffer in place, with the vector kernel when it is available.
+     *
+     * @param buffer the characters to translate
+     * @param offset the first position to translate
+     * @param length the number of characters to translate
+     */
+    void translate(char[] buffer, int offset, int length) {
+        if (bytes != null && length >= TranslationKernel.MIN_LENGTH && TranslationKernel.VECTOR != null) {
+            TranslationKernel.VECTOR.translate(buffer, offset, length, chars);
+        } else {
+            translateScalar(buffer, offset, length);
+        }
+    }
+
+    /**
+     * Translates a range of a character buffer in place one character at a time.
+     *
+     * @param buffer the characters to translate
+     * @param offset the first position to translate
+     * @param length the number of characters to translate
+     */
+    void translateScalar(char[] buffer, int offset, int length) {
+        char[] dense = chars;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            char c = buffer[i];
+            if (c < dense.length) {
+                buffer[i] = dense[c];
+            } else if (sparseChars != null) {
+                buffer[i] = translate(c);
+            }
+        }
+    }
+}
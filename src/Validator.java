@@ -35,6 +35,9 @@ public class Validator {
 
     /**
      * Validates if the given file path follows a standard naming pattern and is not null or empty.
+     * The file name may only contain ASCII letters, digits, dots, underscores, hyphens and spaces,
+     * the class {@code [a-zA-Z0-9._\- ]}; it is checked character by character, without compiling
+     * a regular expression on every call.
      *
      * @param filePath the file path to validate
      * @return {@code true} if the file path is valid, {@code false} otherwise
@@ -43,8 +46,24 @@ public class Validator {
         if (filePath == null || filePath.isEmpty()) {
             return false;
         }
-        String fileName = Paths.get(filePath).getFileName().toString();
-        String pattern = "^[a-zA-Z0-9._\\- ]+$";
-        return fileName.matches(pattern);
+        Path name = Paths.get(filePath).getFileName();
+        if (name == null) {
+            return false;
+        }
+        String fileName = name.toString();
+        if (fileName.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < fileName.length(); i++) {
+            if (!isFileNameChar(fileName.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isFileNameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '.' || c == '_' || c == '-' || c == ' ';
     }
 }
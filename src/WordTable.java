@@ -0,0 +1,409 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The {@code WordTable} class is an open-addressing hash table of words that can be queried with
+ * a range of any {@code CharSequence}, without creating substrings. Letters are folded to lower case
+ * and characters that are not letters are skipped while hashing and comparing, so a range such as
+ * {@code "¡Casa!"} matches the word {@code "casa"}.
+ *
+ * <p>The whole table lives in a single little-endian {@code ByteBuffer} with a fixed layout, so a table compiled
+ * to a file by {@link #compile(Path, Path)} is used straight from a read-only memory mapping: loading
+ * it costs no parsing and almost no heap, whatever the number of words. The layout is:</p>
+ * <pre>
+ * int magic, int version, int capacity, int size, int poolLength
+ * int[capacity]     slots: 1 + offset of the word in the pool, or 0 if the slot is empty
+ * char[poolLength]  pool: each word as its length followed by its folded letters
+ * </pre>
+ *
+ * <p>Tables are immutable and safe to read from several threads.</p>
+ */
+
+public class WordTable {
+
+    /**
+     * Extension of compiled dictionary files.
+     */
+    public static final String COMPILED_EXTENSION = ".dic";
+
+    private static final int MAGIC = 0x43444943;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 5 * Integer.BYTES;
+
+    /**
+     * Lower-case form of each ASCII letter, or {@code -1} for any other ASCII character.
+     */
+    private static final int[] ASCII_FOLD = new int[128];
+
+    static {
+        for (int c = 0; c < ASCII_FOLD.length; c++) {
+            ASCII_FOLD[c] = Character.isLetter(c) ? Character.toLowerCase(c) : -1;
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final int mask;
+    private final int size;
+    private final int poolBase;
+
+    private WordTable(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("El archivo no es un diccionario compilado válido");
+        }
+        int capacity = buffer.getInt(8);
+        int size = buffer.getInt(12);
+        int poolLength = buffer.getInt(16);
+        // Una tabla llena no tendría huecos donde terminar una búsqueda
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0 || size < 0 || size >= capacity || poolLength < 0
+                || HEADER_SIZE + (long) capacity * Integer.BYTES + (long) poolLength * Character.BYTES != buffer.limit()) {
+            throw new IllegalArgumentException("La cabecera del diccionario compilado no coincide con su contenido");
+        }
+        this.buffer = buffer;
+        this.mask = capacity - 1;
+        this.size = size;
+        this.poolBase = HEADER_SIZE + capacity * Integer.BYTES;
+    }
+
+    /**
+     * Builds a table in memory from a list of words.
+     *
+     * @param words the words to add; repetitions and characters that are not letters are ignored
+     * @return the table with the given words
+     */
+    public static WordTable of(Iterable<String> words) {
+        Builder builder = new Builder();
+        for (String word : words) {
+            builder.add(word);
+        }
+        return new WordTable(builder.toBuffer());
+    }
+
+    /**
+     * Loads a dictionary file. A compiled file ({@value #COMPILED_EXTENSION}) is mapped directly. A
+     * word list, with one word per line, is compiled the first time to a file with the same name plus
+     * {@value #COMPILED_EXTENSION}, which is reused by later runs as long as it is newer than the list.
+     *
+     * @param path the word list or compiled dictionary
+     * @return the table with the words of the file
+     * @throws IOException if an I/O error occurs while reading, compiling or mapping the file
+     * @throws IllegalArgumentException if a compiled file is not valid
+     */
+    public static WordTable load(Path path) throws IOException {
+        if (path.toString().endsWith(COMPILED_EXTENSION)) {
+            return open(path);
+        }
+        Path compiled = Paths.get(path + COMPILED_EXTENSION);
+        if (!Files.exists(compiled)
+                || Files.getLastModifiedTime(compiled).compareTo(Files.getLastModifiedTime(path)) < 0) {
+            compile(path, compiled);
+        }
+        return open(compiled);
+    }
+
+    /**
+     * Maps a compiled dictionary file in memory.
+     *
+     * @param compiled the compiled dictionary
+     * @return the table backed by the mapping
+     * @throws IOException if an I/O error occurs while mapping the file
+     * @throws IllegalArgumentException if the file is not a valid compiled dictionary
+     */
+    public static WordTable open(Path compiled) throws IOException {
+        try (FileChannel channel = FileChannel.open(compiled, StandardOpenOption.READ)) {
+            return new WordTable(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Compiles a word list, with one word per line, into a dictionary file. Empty lines and lines
+     * starting with {@code #} are ignored. The file is written to a temporary name and then moved,
+     * so a concurrent reader never sees it half written.
+     *
+     * @param wordList the UTF-8 word list
+     * @param compiled the compiled dictionary to create or replace
+     * @throws IOException if an I/O error occurs while reading or writing
+     */
+    public static void compile(Path wordList, Path compiled) throws IOException {
+        Builder builder = new Builder();
+        try (BufferedReader reader = Files.newBufferedReader(wordList, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    builder.add(line);
+                }
+            }
+        }
+        ByteBuffer buffer = builder.toBuffer();
+        Path temporary = Files.createTempFile(compiled.toAbsolutePath().getParent(), "dic", ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temporary, compiled, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Checks whether the letters of a range of characters form a word of the table.
+     *
+     * @param text the text containing the word
+     * @param start the first position of the range
+     * @param end the position after the last character of the range
+     * @return {@code true} if the word is in the table; {@code false} if it is not or the range has no letters
+     */
+    public boolean contains(CharSequence text, int start, int end) {
+        int slot = hash(text, start, end) & mask;
+        for (int entry = slotAt(slot); entry != 0; entry = slotAt(slot)) {
+            if (matches(poolBase + (entry - 1) * Character.BYTES, text, start, end)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a word already folded with {@link #fold(CharSequence, int, int, char[])} is in the
+     * table. Folding once and looking the result up in several tables avoids folding the text again
+     * for each of them.
+     *
+     * @param folded the folded letters of the word
+     * @param length the number of letters in {@code folded}
+     * @param hash the hash of the word, from {@link #hash(char[], int)}
+     * @return {@code true} if the word is in the table
+     */
+    boolean contains(char[] folded, int length, int hash) {
+        int slot = hash & mask;
+        for (int entry = slotAt(slot); entry != 0; entry = slotAt(slot)) {
+            int position = poolBase + (entry - 1) * Character.BYTES;
+            if (buffer.getChar(position) == length && matches(position + Character.BYTES, folded, length)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of distinct words in the table.
+     *
+     * @return the number of words
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Counts the letters of a range, which is the length of the word it forms.
+     *
+     * @param text the text containing the word
+     * @param start the first position of the range
+     * @param end the position after the last character of the range
+     * @return the number of letters in the range
+     */
+    static int foldedLength(CharSequence text, int start, int end) {
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            if (fold(text.charAt(i)) != -1) {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Folds a character the way the scorer compares words: letters of the Spanish alphabet
+     * ({@code a-z}, accented vowels and {@code ñ}) become lower case, anything else is dropped.
+     *
+     * @param c the character to fold
+     * @return the lower-case letter, or {@code -1} if the character is not part of a word
+     */
+    static int fold(char c) {
+        if (c < 128) {
+            return ASCII_FOLD[c];
+        }
+        char lower = Character.toLowerCase(c);
+        switch (lower) {
+            case 'á': case 'é': case 'í': case 'ó': case 'ú': case 'ñ':
+                return lower;
+            default:
+                // Por ejemplo el signo Kelvin, cuya minúscula es 'k'
+                return lower < 128 ? ASCII_FOLD[lower] : -1;
+        }
+    }
+
+    /**
+     * Copies the folded letters of a range of characters into an array, as far as they fit.
+     *
+     * @param text the text containing the word
+     * @param start the first position of the range
+     * @param end the position after the last character of the range
+     * @param target the array receiving the letters
+     * @return the number of letters in the range, which may exceed the length of {@code target}
+     */
+    static int fold(CharSequence text, int start, int end, char[] target) {
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            int c = fold(text.charAt(i));
+            if (c != -1) {
+                if (length < target.length) {
+                    target[length] = (char) c;
+                }
+                length++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Computes the hash of a folded word.
+     *
+     * @param folded the folded letters of the word
+     * @param length the number of letters in {@code folded}
+     * @return the hash used to place the word in a table
+     */
+    static int hash(char[] folded, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + folded[i];
+        }
+        return mix(hash);
+    }
+
+    private static int hash(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            int c = fold(text.charAt(i));
+            if (c != -1) {
+                hash = 31 * hash + c;
+            }
+        }
+        return mix(hash);
+    }
+
+    private static int mix(int hash) {
+        // Mezclar los bits altos, la tabla usa los bajos
+        return hash ^ (hash >>> 16);
+    }
+
+    private int slotAt(int slot) {
+        return buffer.getInt(HEADER_SIZE + slot * Integer.BYTES);
+    }
+
+    private boolean matches(int letter, char[] folded, int length) {
+        for (int i = 0; i < length; i++, letter += Character.BYTES) {
+            if (buffer.getChar(letter) != folded[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matches(int wordPosition, CharSequence text, int start, int end) {
+        int length = buffer.getChar(wordPosition);
+        int letter = wordPosition + Character.BYTES;
+        int matched = 0;
+        for (int i = start; i < end; i++) {
+            int c = fold(text.charAt(i));
+            if (c == -1) {
+                continue;
+            }
+            if (matched == length || buffer.getChar(letter) != c) {
+                return false;
+            }
+            matched++;
+            letter += Character.BYTES;
+        }
+        return matched == length;
+    }
+
+    /**
+     * Collects folded words and lays them out in the buffer format of {@code WordTable}.
+     */
+    private static final class Builder {
+        private char[][] words = new char[1024][];
+        private int size;
+        private long poolLength;
+
+        void add(String word) {
+            char[] folded = new char[foldedLength(word, 0, word.length())];
+            if (folded.length == 0 || folded.length > Character.MAX_VALUE) {
+                return;
+            }
+            int length = 0;
+            for (int i = 0; i < word.length(); i++) {
+                int c = fold(word.charAt(i));
+                if (c != -1) {
+                    folded[length++] = (char) c;
+                }
+            }
+            if ((size + 1) * 2 > words.length) {
+                rehash(words.length * 2);
+            }
+            int slot = hash(word, 0, word.length()) & (words.length - 1);
+            while (words[slot] != null) {
+                if (Arrays.equals(words[slot], folded)) {
+                    return;
+                }
+                slot = (slot + 1) & (words.length - 1);
+            }
+            words[slot] = folded;
+            size++;
+            poolLength += 1 + folded.length;
+        }
+
+        ByteBuffer toBuffer() {
+            long bytes = HEADER_SIZE + (long) words.length * Integer.BYTES + poolLength * Character.BYTES;
+            if (bytes > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("El diccionario es demasiado grande");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) bytes).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(words.length).putInt(size).putInt((int) poolLength);
+            int poolBase = HEADER_SIZE + words.length * Integer.BYTES;
+            int offset = 0;
+            for (int slot = 0; slot < words.length; slot++) {
+                char[] word = words[slot];
+                if (word == null) {
+                    continue;
+                }
+                buffer.putInt(HEADER_SIZE + slot * Integer.BYTES, offset + 1);
+                int position = poolBase + offset * Character.BYTES;
+                buffer.putChar(position, (char) word.length);
+                for (char c : word) {
+                    position += Character.BYTES;
+                    buffer.putChar(position, c);
+                }
+                offset += 1 + word.length;
+            }
+            buffer.clear();
+            return buffer;
+        }
+
+        private void rehash(int capacity) {
+            char[][] oldWords = words;
+            words = new char[capacity][];
+            for (char[] word : oldWords) {
+                if (word != null) {
+                    String text = new String(word);
+                    int slot = hash(text, 0, text.length()) & (capacity - 1);
+                    while (words[slot] != null) {
+                        slot = (slot + 1) & (capacity - 1);
+                    }
+                    words[slot] = word;
+                }
+            }
+        }
+    }
+}